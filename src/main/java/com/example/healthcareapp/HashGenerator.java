@@ -1,14 +1,74 @@
 package com.example.healthcareapp;
 
+import com.example.healthcareapp.util.PasswordHasher;
 import org.mindrot.jbcrypt.BCrypt;
 
+// BCrypt command line tool:
+//   calibrate [targetMs]  pick and store the cost for this machine (default 250 ms)
+//   bench [cost...]       time hashing at each cost (default 10..14)
+//   hash <password> [cost] print a hash, at the stored cost unless one is given
 public class HashGenerator {
+    private static final int BENCHMARK_ROUNDS = 5;
+
     public static void main(String[] args) {
-        String password = "recept123";
-        String hash = BCrypt.hashpw(password, BCrypt.gensalt(12));
+        String command = args.length > 0 ? args[0] : "";
+
+        switch (command) {
+            case "calibrate":
+                calibrate(args.length > 1 ? Long.parseLong(args[1]) : PasswordHasher.DEFAULT_TARGET_MILLIS);
+                break;
+            case "bench":
+                bench(args);
+                break;
+            case "hash":
+                if (args.length < 2) {
+                    printUsage();
+                    return;
+                }
+                hash(args[1], args.length > 2 ? Integer.parseInt(args[2]) : PasswordHasher.getCost());
+                break;
+            default:
+                printUsage();
+        }
+    }
+
+    private static void calibrate(long targetMillis) {
+        System.out.println("Current cost: " + PasswordHasher.getCost());
+        System.out.println("Target verification time: " + targetMillis + " ms");
+
+        int cost = PasswordHasher.calibrate(targetMillis);
+        PasswordHasher.saveCost(cost);
+
+        System.out.printf("Chosen cost: %d (%.1f ms per hash)%n", cost, PasswordHasher.benchmark(cost, BENCHMARK_ROUNDS));
+        System.out.println("Existing password hashes are upgraded on each user's next login.");
+    }
+
+    private static void bench(String[] args) {
+        int[] costs;
+        if (args.length > 1) {
+            costs = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                costs[i - 1] = Integer.parseInt(args[i]);
+            }
+        } else {
+            costs = new int[]{10, 11, 12, 13, 14};
+        }
+
+        System.out.println("Cost  Median ms");
+        for (int cost : costs) {
+            System.out.printf("%4d  %9.1f%n", cost, PasswordHasher.benchmark(cost, BENCHMARK_ROUNDS));
+        }
+        System.out.println("Stored cost: " + PasswordHasher.getCost());
+    }
+
+    private static void hash(String password, int cost) {
+        String hash = BCrypt.hashpw(password, BCrypt.gensalt(cost));
         System.out.println("Password: " + password);
         System.out.println("BCrypt Hash: " + hash);
         System.out.println("Hash Length: " + hash.length());
     }
-}
 
+    private static void printUsage() {
+        System.out.println("Usage: HashGenerator calibrate [targetMs] | bench [cost...] | hash <password> [cost]");
+    }
+}
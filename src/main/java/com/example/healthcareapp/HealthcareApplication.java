@@ -1,5 +1,8 @@
 package com.example.healthcareapp;
 
+import com.example.healthcareapp.dao.DatabaseConnection;
+import com.example.healthcareapp.dao.LastLoginWriter;
+import com.example.healthcareapp.util.HashingExecutor;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -22,6 +25,16 @@ public class HealthcareApplication extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        // Write pending last-login times while the pool is still open
+        LastLoginWriter.getInstance().shutdown();
+
+        // Release pooled database connections
+        DatabaseConnection.shutdown();
+        HashingExecutor.getInstance().shutdown();
+    }
+
     public static void main(String[] args) {
         launch();
     }
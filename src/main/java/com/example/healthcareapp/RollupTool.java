@@ -0,0 +1,62 @@
+package com.example.healthcareapp;
+
+import com.example.healthcareapp.dao.DailyRollupStore;
+import com.example.healthcareapp.dao.DatabaseConnection;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+// Daily appointment rollup maintenance:
+//   migrate            create the rollup tables (then run rebuild to backfill)
+//   check [from to]    compare rollup counts with the appointments table
+//   rebuild [from to]  recompute the rollups from the appointments table
+//   repair             rebuild the dates marked dirty by missed rollup writes
+// Dates are yyyy-MM-dd; without them the whole table is used.
+public class RollupTool {
+
+    public static void main(String[] args) {
+        String command = args.length > 0 ? args[0] : "";
+        LocalDate from = args.length > 1 ? LocalDate.parse(args[1]) : null;
+        LocalDate to = args.length > 2 ? LocalDate.parse(args[2]) : null;
+        DailyRollupStore rollups = DailyRollupStore.getInstance();
+
+        try {
+            switch (command) {
+                case "migrate":
+                    rollups.migrate();
+                    System.out.println("Rollup tables are in place; run rebuild to backfill them.");
+                    break;
+                case "check":
+                    List<String> mismatches = rollups.check(from, to);
+                    mismatches.forEach(System.out::println);
+                    System.out.println(mismatches.isEmpty()
+                            ? "Rollups match the appointments table."
+                            : mismatches.size() + " mismatched rows; run rebuild to repair.");
+                    break;
+                case "rebuild":
+                    long start = System.nanoTime();
+                    rollups.rebuild(from, to);
+                    System.out.printf("Rebuilt in %.1f ms%n", (System.nanoTime() - start) / 1_000_000.0);
+                    break;
+                case "repair":
+                    if (rollups.needsBackfill()) {
+                        System.out.println("Rollups have not been backfilled yet; run rebuild.");
+                        break;
+                    }
+                    List<LocalDate> dirty = rollups.getDirtyDates();
+                    for (LocalDate date : dirty) {
+                        rollups.rebuild(date, date);
+                    }
+                    System.out.println("Repaired " + dirty.size() + " dirty dates.");
+                    break;
+                default:
+                    System.out.println("Usage: RollupTool migrate | check [from to] | rebuild [from to] | repair");
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            DatabaseConnection.shutdown();
+        }
+    }
+}
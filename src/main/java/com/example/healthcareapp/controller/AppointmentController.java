@@ -2,13 +2,18 @@ package com.example.healthcareapp.controller;
 
 import com.example.healthcareapp.Refreshable;
 import com.example.healthcareapp.dao.AppointmentDAO;
+import com.example.healthcareapp.dao.AppointmentQuery;
+import com.example.healthcareapp.dao.AvailabilityEngine;
 import com.example.healthcareapp.dao.PatientDAO;
+import com.example.healthcareapp.dao.PatientSearchIndex;
 import com.example.healthcareapp.dao.UserDAO;
 import com.example.healthcareapp.model.*;
+import com.example.healthcareapp.util.PagedTableLoader;
 import com.example.healthcareapp.util.SessionManager;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.geometry.Pos;
@@ -17,6 +22,7 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.util.StringConverter;
 
 import java.net.URL;
 import java.sql.Time;
@@ -26,6 +32,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.function.BiFunction;
 
 public class AppointmentController implements Initializable, Refreshable {
 
@@ -40,6 +47,8 @@ public class AppointmentController implements Initializable, Refreshable {
     @FXML private Button bookButton;
     @FXML private Button clearFormButton;
     @FXML private Label statusLabel;
+    @FXML private Button findNextAvailableButton;
+    @FXML private ListView<AvailableSlot> nextAvailableListView;
 
     // My Appointments Tab
     @FXML private Button refreshAppointmentsButton;
@@ -71,11 +80,22 @@ public class AppointmentController implements Initializable, Refreshable {
     private PatientDAO patientDAO;
     private UserDAO userDAO;
     private ObservableList<Patient> patientList;
+    private Patient newPatientOption;
     private ObservableList<User> doctorList;
-    private ObservableList<Appointment> myAppointments;
-    private ObservableList<Appointment> allAppointmentsList;
+    private PagedTableLoader<Appointment> myAppointmentsLoader;
+    private PagedTableLoader<Appointment> allAppointmentsLoader;
     private User currentUser;
 
+    // Rows fetched per keyset page in the appointment tables
+    private static final int PAGE_SIZE = 100;
+
+    // How far ahead and how many results "Find Next Available" returns
+    private static final int NEXT_AVAILABLE_DAYS = 30;
+    private static final int NEXT_AVAILABLE_LIMIT = 10;
+
+    // Patients listed in the booking combo for the typed prefix
+    private static final int PATIENT_SEARCH_LIMIT = 50;
+
     @FXML
     public void initialize(URL url, ResourceBundle resourceBundle) {
         appointmentDAO = new AppointmentDAO();
@@ -85,8 +105,6 @@ public class AppointmentController implements Initializable, Refreshable {
 
         patientList = FXCollections.observableArrayList();
         doctorList = FXCollections.observableArrayList();
-        myAppointments = FXCollections.observableArrayList();
-        allAppointmentsList = FXCollections.observableArrayList();
 
         // Populate filter status ComboBox
         filterStatusComboBox.setItems(FXCollections.observableArrayList(
@@ -107,9 +125,13 @@ public class AppointmentController implements Initializable, Refreshable {
         loadPatientsForBooking();
         loadDoctors();
 
+        setupNextAvailableList();
+
         // Set up table columns
         setupMyAppointmentsTable();
         setupAllAppointmentsTable();
+        myAppointmentsLoader = new PagedTableLoader<>(appointmentsTable, PAGE_SIZE);
+        allAppointmentsLoader = new PagedTableLoader<>(allAppointmentsTable, PAGE_SIZE);
 
         // Load initial data
         loadMyAppointments();
@@ -130,27 +152,51 @@ public class AppointmentController implements Initializable, Refreshable {
     }
 
     private void loadPatientsForBooking() {
-        refreshPatients();
-
-        // Add "Add New Patient" option
-        Patient newPatientOption = new Patient();
+        // "Add New Patient" option, always listed first
+        newPatientOption = new Patient();
         newPatientOption.setPatientId(-1);
         newPatientOption.setFirstName("Add New");
         newPatientOption.setLastName("Patient...");
-        patientList.add(0, newPatientOption);
 
-        patientComboBox.setCellFactory(lv -> new ListCell<Patient>() {
+        patientComboBox.setItems(patientList);
+        refreshPatients();
+
+        // Typing into the combo searches the patient index instead of listing everyone
+        patientComboBox.setEditable(true);
+        patientComboBox.setPromptText("Type a name, phone or email");
+        patientComboBox.setConverter(new StringConverter<Patient>() {
             @Override
-            protected void updateItem(Patient patient, boolean empty) {
-                super.updateItem(patient, empty);
-                setText(empty ? "" : patient.getFirstName() + " " + patient.getLastName());
+            public String toString(Patient patient) {
+                return patient == null ? "" : patientLabel(patient);
+            }
+
+            @Override
+            public Patient fromString(String text) {
+                for (Patient patient : patientList) {
+                    if (patientLabel(patient).equals(text)) {
+                        return patient;
+                    }
+                }
+                return null;
             }
         });
-        patientComboBox.setButtonCell(new ListCell<Patient>() {
+        patientComboBox.setCellFactory(lv -> new ListCell<Patient>() {
             @Override
             protected void updateItem(Patient patient, boolean empty) {
                 super.updateItem(patient, empty);
-                setText(empty ? "" : patient.getFirstName() + " " + patient.getLastName());
+                setText(empty ? "" : patientLabel(patient));
+            }
+        });
+
+        patientComboBox.getEditor().textProperty().addListener((obs, oldText, newText) -> {
+            Patient selected = patientComboBox.getValue();
+            if (selected != null && patientLabel(selected).equals(newText)) {
+                // Text was filled in from a selection, not typed
+                return;
+            }
+            searchPatients(newText);
+            if (patientComboBox.getEditor().isFocused() && !patientComboBox.isShowing()) {
+                patientComboBox.show();
             }
         });
 
@@ -164,10 +210,33 @@ public class AppointmentController implements Initializable, Refreshable {
     }
 
     protected void refreshPatients() {
-        System.out.println("here ");
-        patientList.clear();
-        patientList.addAll(patientDAO.getAllPatients());
-        patientComboBox.setItems(patientList);
+        searchPatients("");
+    }
+
+    private void searchPatients(String query) {
+        List<Patient> matches = new ArrayList<>();
+        matches.add(newPatientOption);
+        matches.addAll(PatientSearchIndex.getInstance().search(query, PATIENT_SEARCH_LIMIT));
+        // One setAll so the combo keeps its current value while the list changes
+        patientList.setAll(matches);
+    }
+
+    private static String patientLabel(Patient patient) {
+        if (patient.getPatientId() == -1) {
+            return patient.getFirstName() + " " + patient.getLastName();
+        }
+        // The id keeps patients with the same name apart
+        return patient.getFirstName() + " " + patient.getLastName() + " (ID: " + patient.getPatientId() + ")";
+    }
+
+    // The chosen patient, or null if the combo text has been edited since choosing
+    private Patient selectedBookingPatient() {
+        Patient selected = patientComboBox.getValue();
+        if (selected == null || selected.getPatientId() == -1 ||
+                !patientLabel(selected).equals(patientComboBox.getEditor().getText())) {
+            return null;
+        }
+        return selected;
     }
 
     private void openPatientCreationDialog() {
@@ -211,18 +280,12 @@ public class AppointmentController implements Initializable, Refreshable {
                 newPatient.setGender(genderCombo.getValue());
 
                 if (patientDAO.addPatient(newPatient)) {
-                    // Reload patient list
-                    loadPatientsForBooking();
                     showAlert("Success", "Patient created and added to booking", Alert.AlertType.INFORMATION);
 
                     // Auto-select the new patient
-                    for (Patient patient : patientList) {
-                        if (patient.getFirstName().equals(newPatient.getFirstName()) &&
-                                patient.getLastName().equals(newPatient.getLastName())) {
-                            patientComboBox.setValue(patient);
-                            break;
-                        }
-                    }
+                    refreshPatients();
+                    Patient created = PatientSearchIndex.getInstance().get(newPatient.getPatientId());
+                    patientComboBox.setValue(created != null ? created : newPatient);
                 } else {
                     showAlert("Error", "Failed to create patient", Alert.AlertType.ERROR);
                 }
@@ -253,13 +316,7 @@ public class AppointmentController implements Initializable, Refreshable {
     }
 
     @Override public void refreshDoctors() {
-        doctorList.clear();
-        List<User> allUsers = userDAO.getActiveUsers();
-        for (User user : allUsers) {
-            if ("Doctor".equals(user.getRole())) {
-                doctorList.add(user);
-            }
-        }
+        doctorList.setAll(userDAO.getActiveDoctors());
         doctorComboBox.setItems(doctorList);
     }
 
@@ -307,9 +364,88 @@ public class AppointmentController implements Initializable, Refreshable {
         }
     }
 
+    private void setupNextAvailableList() {
+        nextAvailableListView.setCellFactory(lv -> new ListCell<AvailableSlot>() {
+            @Override
+            protected void updateItem(AvailableSlot slot, boolean empty) {
+                super.updateItem(slot, empty);
+                if (empty || slot == null) {
+                    setText("");
+                } else {
+                    User doctor = findDoctor(slot.getDoctorId());
+                    setText(slot + " - " + (doctor != null ? doctor.getFullName() : "Doctor #" + slot.getDoctorId()));
+                }
+            }
+        });
+
+        // Selecting a suggestion fills in doctor, date and time
+        nextAvailableListView.getSelectionModel().selectedItemProperty().addListener((obs, oldSlot, slot) -> {
+            if (slot == null) return;
+            User doctor = findDoctor(slot.getDoctorId());
+            if (doctor != null) {
+                doctorComboBox.setValue(doctor);
+                appointmentDatePicker.setValue(slot.getDate());
+                timeComboBox.setValue(slot.getTime());
+            }
+        });
+    }
+
+    // Earliest open slots for the selected doctor, or for every doctor if none is selected
+    @FXML
+    private void findNextAvailable() {
+        List<Integer> doctorIds = new ArrayList<>();
+        if (doctorComboBox.getValue() != null) {
+            doctorIds.add(doctorComboBox.getValue().getUserId());
+        } else {
+            for (User doctor : doctorList) {
+                doctorIds.add(doctor.getUserId());
+            }
+        }
+
+        LocalDate fromDate = appointmentDatePicker.getValue() != null && !appointmentDatePicker.getValue().isBefore(LocalDate.now())
+                ? appointmentDatePicker.getValue() : LocalDate.now();
+
+        // Days not cached yet are read from the database, so search off the FX thread
+        Task<List<AvailableSlot>> search = new Task<>() {
+            @Override
+            protected List<AvailableSlot> call() {
+                return AvailabilityEngine.getInstance().findEarliestSlots(
+                        doctorIds, fromDate, fromDate.plusDays(NEXT_AVAILABLE_DAYS - 1),
+                        AvailabilityEngine.OPENING_TIME, AvailabilityEngine.CLOSING_TIME, NEXT_AVAILABLE_LIMIT);
+            }
+        };
+        search.setOnSucceeded(event -> {
+            findNextAvailableButton.setDisable(false);
+            List<AvailableSlot> slots = search.getValue();
+            nextAvailableListView.setItems(FXCollections.observableArrayList(slots));
+            if (slots.isEmpty()) {
+                statusLabel.setStyle("-fx-text-fill: orange;");
+                statusLabel.setText("No open slots in the next " + NEXT_AVAILABLE_DAYS + " days");
+            }
+        });
+        search.setOnFailed(event -> {
+            findNextAvailableButton.setDisable(false);
+            search.getException().printStackTrace();
+        });
+
+        findNextAvailableButton.setDisable(true);
+        Thread thread = new Thread(search, "next-available");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private User findDoctor(int doctorId) {
+        for (User doctor : doctorList) {
+            if (doctor.getUserId() == doctorId) {
+                return doctor;
+            }
+        }
+        return null;
+    }
+
     @FXML
     private void bookAppointment() {
-        Patient selectedPatient = patientComboBox.getValue();
+        Patient selectedPatient = selectedBookingPatient();
         User selectedDoctor = doctorComboBox.getValue();
         LocalDate date = appointmentDatePicker.getValue();
         LocalTime time = timeComboBox.getValue();
@@ -357,31 +493,24 @@ public class AppointmentController implements Initializable, Refreshable {
 
     @FXML
     private void loadMyAppointments() {
-        myAppointments.clear();
-
         if (currentUser.hasRole("Doctor")) {
-            // Doctors see their own appointments
-            myAppointments.addAll(appointmentDAO.getAppointmentsByDoctor(currentUser.getUserId()));
-            statusLabel.setText("Your schedule: " + myAppointments.size() + " appointments");
+            // Doctors see their own appointments, fetched a page at a time as they scroll
+            myAppointmentsLoader.setOnPageLoaded(() ->
+                    statusLabel.setText("Your schedule: " + describeCount(myAppointmentsLoader) + " appointments"));
+            myAppointmentsLoader.reset(pageOf(new AppointmentQuery().doctor(currentUser.getUserId())));
 
         } else if (currentUser.hasRole("Admin") || currentUser.hasRole("Receptionist")) {
             // Admins/Receptionists see appointments they created
-            List<Appointment> createdAppointments = new ArrayList<>();
-            for (Appointment appointment : appointmentDAO.getAllAppointments()) {
-                if (appointment.getCreatedBy() == currentUser.getUserId()) {
-                    createdAppointments.add(appointment);
-                }
-            }
-            myAppointments.addAll(createdAppointments);
-            statusLabel.setText("Your bookings: " + myAppointments.size() + " appointments");
+            myAppointmentsLoader.setOnPageLoaded(() ->
+                    statusLabel.setText("Your bookings: " + describeCount(myAppointmentsLoader) + " appointments"));
+            myAppointmentsLoader.reset(pageOf(new AppointmentQuery().createdBy(currentUser.getUserId())));
 
         } else {
             // Patients would see their own appointments (not implemented yet)
             statusLabel.setText("Please contact reception to view your appointments");
+            appointmentsTable.setItems(FXCollections.emptyObservableList());
         }
 
-        appointmentsTable.setItems(myAppointments);
-
         // Clear selection to avoid issues
         appointmentsTable.getSelectionModel().clearSelection();
     }
@@ -389,48 +518,42 @@ public class AppointmentController implements Initializable, Refreshable {
     @FXML
     private void loadAllAppointments() {
         if (currentUser.hasRole("Admin")) {
-            allAppointmentsList.clear();
-            allAppointmentsList.addAll(appointmentDAO.getAllAppointments());
-            allAppointmentsTable.setItems(allAppointmentsList);
-            // Update status label if you have one for admin view
+            // Keyset-paged so only the rows scrolled into view are fetched
+            allAppointmentsLoader.reset(pageOf(buildFilterQuery()));
         } else {
             // Non-admins shouldn't see this tab, but just in case
             allAppointmentsTable.setItems(FXCollections.emptyObservableList());
         }
     }
 
-
     @FXML
     private void filterAppointments() {
-        String statusFilter = filterStatusComboBox.getValue();
-        LocalDate dateFilter = filterDatePicker.getValue();
+        // The filter runs in the database; the table then pages through the matches
+        allAppointmentsLoader.reset(pageOf(buildFilterQuery()));
+    }
 
-        ObservableList<Appointment> filteredList = FXCollections.observableArrayList();
+    private AppointmentQuery buildFilterQuery() {
+        AppointmentQuery query = new AppointmentQuery();
 
-        for (Appointment appointment : allAppointmentsList) {
-            boolean matches = true;
+        String statusFilter = filterStatusComboBox.getValue();
+        if (statusFilter != null && !"All".equals(statusFilter)) {
+            query.status(statusFilter);
+        }
 
-            // Filter by status
-            if (!"All".equals(statusFilter)) {
-                if (!statusFilter.equals(appointment.getStatus())) {
-                    matches = false;
-                }
-            }
+        LocalDate dateFilter = filterDatePicker.getValue();
+        if (dateFilter != null) {
+            query.onDate(dateFilter);
+        }
 
-            // Filter by date
-            if (dateFilter != null) {
-                if (appointment.getAppointmentDate() == null ||
-                        !appointment.getAppointmentDate().equals(dateFilter)) {
-                    matches = false;
-                }
-            }
+        return query;
+    }
 
-            if (matches) {
-                filteredList.add(appointment);
-            }
-        }
+    private BiFunction<Appointment, Integer, List<Appointment>> pageOf(AppointmentQuery query) {
+        return (last, pageSize) -> appointmentDAO.findAppointments(query, last, pageSize);
+    }
 
-        allAppointmentsTable.setItems(filteredList);
+    private String describeCount(PagedTableLoader<Appointment> loader) {
+        return loader.getItems().size() + (loader.isExhausted() ? "" : "+");
     }
 
     private void setupMyAppointmentsTable() {
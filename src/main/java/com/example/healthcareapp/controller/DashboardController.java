@@ -1,27 +1,47 @@
 package com.example.healthcareapp.controller;
 
+import com.example.healthcareapp.dao.CsvExporter;
+import com.example.healthcareapp.dao.DatabaseConnection;
+import com.example.healthcareapp.dao.ExportStats;
+import com.example.healthcareapp.dao.PoolStats;
+import com.example.healthcareapp.dao.ReportCache;
 import com.example.healthcareapp.dao.ReportingService;
+import com.example.healthcareapp.dao.UserDAO;
+import com.example.healthcareapp.model.AgeGenderHistogram;
 import com.example.healthcareapp.model.AnalyticsReport;
+import com.example.healthcareapp.model.CohortRetention;
 import com.example.healthcareapp.model.DemographicsRow;
 import com.example.healthcareapp.model.DoctorRankingRow;
+import com.example.healthcareapp.model.SlotDistribution;
+import com.example.healthcareapp.model.TimeSeries;
+import com.example.healthcareapp.model.User;
 import javafx.animation.FadeTransition;
 import javafx.application.Platform;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.Node;
 import javafx.scene.chart.*;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
 import javafx.util.Duration;
 
+import java.io.File;
 import java.net.URL;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.ResourceBundle;
 
 public class DashboardController implements Initializable {
@@ -48,12 +68,13 @@ public class DashboardController implements Initializable {
     @FXML private Button generateReportButton;
     @FXML private ProgressBar loadingProgress;
     @FXML private Label loadingLabel;
+    @FXML private Label systemStatsLabel;
 
     // Patient Analytics Tab
     @FXML private ComboBox<String> ageGroupComboBox;
     @FXML private Button generateDemographicsButton;
     @FXML private PieChart genderPieChart;
-    @FXML private BarChart ageBarChart;
+    @FXML private BarChart<String, Number> ageBarChart;
     @FXML private TableView<DemographicsRow> demographicsTable;
     @FXML private TableColumn<DemographicsRow, String> ageGroupColumn;
     @FXML private TableColumn<DemographicsRow, Integer> maleCountColumn;
@@ -65,14 +86,23 @@ public class DashboardController implements Initializable {
     // Appointment Analytics Tab
     @FXML private ComboBox<String> appointmentTimeRangeComboBox;
     @FXML private Button generateAppointmentReportButton;
-    @FXML private LineChart appointmentTrendLine;
-    @FXML private BarChart hourlyAppointmentBar;
+    @FXML private LineChart<String, Number> appointmentTrendLine;
+    @FXML private ComboBox<String> trendBucketComboBox;
+    @FXML private BarChart<String, Number> hourlyAppointmentBar;
+    @FXML private ComboBox<String> slotSizeComboBox;
+    @FXML private ComboBox<String> slotWeekdayComboBox;
+    @FXML private ComboBox<User> slotDoctorComboBox;
     @FXML private PieChart statusPieChart;
     @FXML private TableView<DoctorRankingRow> doctorRankingTable;
+    @FXML private TableColumn<DoctorRankingRow, Integer> rankPositionColumn;
     @FXML private TableColumn<DoctorRankingRow, String> doctorNameRankColumn;
     @FXML private TableColumn<DoctorRankingRow, Double> completionRankColumn;
+    @FXML private TableColumn<DoctorRankingRow, Double> rankingScoreColumn;
     @FXML private TableColumn<DoctorRankingRow, Integer> patientCountRankColumn;
     @FXML private TableColumn<DoctorRankingRow, Integer> appointmentCountRankColumn;
+    @FXML private Button previousRankingPageButton;
+    @FXML private Label rankingPageLabel;
+    @FXML private Button nextRankingPageButton;
 
     // Custom Reports Tab
     @FXML private ComboBox<String> reportTypeComboBox;
@@ -83,6 +113,9 @@ public class DashboardController implements Initializable {
     @FXML private Button exportCSVButton;
     @FXML private Button exportPDFButton;
     @FXML private Button printReportButton;
+    // Export progress has its own controls, as report loading sets loadingLabel
+    @FXML private ProgressBar exportProgress;
+    @FXML private Label exportStatusLabel;
 
     private ReportingService reportingService;
     private AnalyticsReport currentReport;
@@ -90,6 +123,28 @@ public class DashboardController implements Initializable {
     private LocalDate defaultEndDate;
     private int totalPatients = 0; // Store total for percentage calculations
 
+    // Stand-in doctor for the "all doctors" choice of the slot pressure filter
+    private final User allDoctorsOption = new User();
+    // Incremented per slot pressure load, so a slower earlier load cannot overwrite a newer one
+    private int slotLoadGeneration = 0;
+    private int trendLoadGeneration = 0;
+
+    private static final int RANKING_PAGE_SIZE = 10;
+    private int rankingPage = 0;
+    private int rankingLoadGeneration = 0;
+
+    // Months after joining shown in the retention grid
+    private static final int RETENTION_PREVIEW_MONTHS = 12;
+
+    // Last custom report shown; exported only with its retention, as the
+    // other report types hold sample data
+    private AnalyticsReport customReport;
+    private CohortRetention customRetention;
+    // Export in progress, if any; the export button cancels it
+    private Task<ExportStats> exportTask;
+
+    private int demographicsLoadGeneration = 0;
+
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         reportingService = new ReportingService();
@@ -122,6 +177,12 @@ public class DashboardController implements Initializable {
                 "Patient Retention", "Revenue Analysis"));
         reportTypeComboBox.setValue("Patient Demographics");
 
+        trendBucketComboBox.setItems(FXCollections.observableArrayList("Daily", "Weekly", "Monthly"));
+        trendBucketComboBox.setValue("Weekly");
+        trendBucketComboBox.valueProperty().addListener((obs, oldVal, newVal) -> updateAppointmentTrendChart());
+
+        setupSlotFilters();
+
         // Setup table columns
         setupDemographicsTable();
         setupDoctorRankingTable();
@@ -135,8 +196,6 @@ public class DashboardController implements Initializable {
         generateAppointmentReportButton.setOnAction(e -> generateAppointmentReport());
         generateCustomReportButton.setOnAction(e -> generateCustomReport());
 
-        //exportCSVButton.setOnAction(e -> exportToCSV());
-        //exportPDFButton.setOnAction(e -> exportToPDF());
         printReportButton.setOnAction(e -> printReport());
 
         // Generate initial report
@@ -193,8 +252,6 @@ public class DashboardController implements Initializable {
 //        updateAgeBarChart();
         //updateAppointmentTrendChart();
         //updateHourlyBarChart();
-        updateDoctorRankingTable();
-        updateDemographicsTable();
     }
 
     private void initializeLineChart(LineChart lineChart, String title) {
@@ -305,6 +362,7 @@ public class DashboardController implements Initializable {
 
     private void generateInitialReport() {
         loadingProgress.setVisible(true);
+        loadingLabel.setText("Generating report...");
         loadingLabel.setVisible(true);
 
         new Thread(() -> {
@@ -315,14 +373,14 @@ public class DashboardController implements Initializable {
                 Platform.runLater(() -> {
                     updateKPICards();
                     updateGenderPieChart();
-                    updateAgeBarChart();
-                    updateDemographicsTable();
+                    generateDemographicsReport();
                     updateAppointmentTrendChart();
                     updateHourlyBarChart();
                     updateStatusPieChart();
                     updateDoctorRankingTable();
                     loadingProgress.setVisible(false);
-                    loadingLabel.setVisible(false);
+                    showMissingSections(currentReport);
+                    updateSystemStats();
                 });
 
             } catch (Exception e) {
@@ -337,6 +395,24 @@ public class DashboardController implements Initializable {
         }).start();
     }
 
+    // Pool timeouts or leaks and a low cache hit rate show here, for sizing
+    // the pool and the report cache
+    private void updateSystemStats() {
+        PoolStats pool = DatabaseConnection.getPoolStats();
+        systemStatsLabel.setText((pool != null ? pool + "\n" : "") + ReportCache.getInstance().getStats());
+    }
+
+    // Keep the loading label up as a note when some sections could not be loaded
+    private void showMissingSections(AnalyticsReport report) {
+        if (report != null && report.isPartial()) {
+            loadingLabel.setText("Partial report, not loaded: " + String.join(", ", report.getMissingSections()));
+            loadingLabel.setVisible(true);
+        } else {
+            loadingLabel.setText("Generating report...");
+            loadingLabel.setVisible(false);
+        }
+    }
+
     private void updateKPICards() {
         if (currentReport == null) {
             currentReport = new AnalyticsReport();
@@ -413,39 +489,34 @@ public class DashboardController implements Initializable {
 
     @FXML
     private void generateDemographicsReport() {
-        try {
-            String ageGroupStr = ageGroupComboBox.getValue();
-            if (ageGroupStr == null) return;
-
-            int ageGroups = Integer.parseInt(ageGroupStr);
-
-            // Generate sample demographics data
-            currentReport = generateSampleDemographicsReport(ageGroups);
+        String ageGroupStr = ageGroupComboBox.getValue();
+        if (ageGroupStr == null) return;
+        int bandWidth = Integer.parseInt(ageGroupStr);
 
-            updateGenderPieChart();
-            updateAgeBarChart();
-            updateDemographicsTable();
-
-        } catch (Exception e) {
-            showAlert("Error", "Failed to generate demographics report: " + e.getMessage(),
-                    Alert.AlertType.ERROR);
-        }
-    }
-
-    private AnalyticsReport generateSampleDemographicsReport(int ageGroups) {
-        AnalyticsReport report = new AnalyticsReport();
-        report.setReportType("Patient Demographics (" + ageGroups + " year groups)");
-
-        // Sample data
-        report.setTotalPatients(472);
-        report.setAvgPatientAge(34.2);
-
-        // Gender distribution
-        report.updateGenderDistribution("Male", 245);
-        report.updateGenderDistribution("Female", 210);
-        report.updateGenderDistribution("Other", 17);
+        int generation = ++demographicsLoadGeneration;
+        Task<AgeGenderHistogram> load = new Task<>() {
+            @Override
+            protected AgeGenderHistogram call() {
+                return reportingService.generateAgeGenderHistogram(bandWidth);
+            }
+        };
+        load.setOnSucceeded(event -> {
+            if (generation != demographicsLoadGeneration) {
+                return;
+            }
+            AgeGenderHistogram histogram = load.getValue();
+            if (histogram == null) {
+                showAlert("Error", "Failed to generate demographics report", Alert.AlertType.ERROR);
+                return;
+            }
+            updateAgeBarChart(histogram);
+            updateDemographicsTable(histogram);
+        });
+        load.setOnFailed(event -> load.getException().printStackTrace());
 
-        return report;
+        Thread thread = new Thread(load, "demographics");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     private void updateGenderPieChart() {
@@ -474,11 +545,7 @@ public class DashboardController implements Initializable {
         }
     }
 
-    private void updateAgeBarChart() {
-        if (currentReport == null) {
-            currentReport = new AnalyticsReport();
-        }
-
+    private void updateAgeBarChart(AgeGenderHistogram histogram) {
         ageBarChart.getData().clear();
 
         XYChart.Series<String, Number> maleSeries = new XYChart.Series<>();
@@ -488,24 +555,14 @@ public class DashboardController implements Initializable {
         XYChart.Series<String, Number> otherSeries = new XYChart.Series<>();
         otherSeries.setName("Other");
 
-        // Sample age group data
-        String[] ageGroups = {"0-18", "19-35", "36-50", "51-65", "65+"};
-        int[] maleCounts = {25, 80, 90, 45, 20};
-        int[] femaleCounts = {30, 95, 100, 55, 25};
-        int[] otherCounts = {2, 5, 3, 2, 1};
-
-        for (int i = 0; i < ageGroups.length; i++) {
-            maleSeries.getData().add(new XYChart.Data<>(ageGroups[i], maleCounts[i]));
-            femaleSeries.getData().add(new XYChart.Data<>(ageGroups[i], femaleCounts[i]));
-            otherSeries.getData().add(new XYChart.Data<>(ageGroups[i], otherCounts[i]));
+        for (int band = 0; band < histogram.getBandCount(); band++) {
+            String label = histogram.getBandLabel(band);
+            maleSeries.getData().add(new XYChart.Data<>(label, histogram.getCount(band, AgeGenderHistogram.MALE)));
+            femaleSeries.getData().add(new XYChart.Data<>(label, histogram.getCount(band, AgeGenderHistogram.FEMALE)));
+            otherSeries.getData().add(new XYChart.Data<>(label, histogram.getCount(band, AgeGenderHistogram.OTHER)));
         }
 
-        ageBarChart.getData().addAll(maleSeries, femaleSeries, otherSeries);
-
-        // Style series
-        maleSeries.getNode().setStyle("-fx-stroke: #4CAF50; -fx-fill: #4CAF50;");
-        femaleSeries.getNode().setStyle("-fx-stroke: #2196F3; -fx-fill: #2196F3;");
-        otherSeries.getNode().setStyle("-fx-stroke: #FF9800; -fx-fill: #FF9800;");
+        ageBarChart.getData().addAll(List.of(maleSeries, femaleSeries, otherSeries));
     }
 
     private void setupDemographicsTable() {
@@ -526,25 +583,13 @@ public class DashboardController implements Initializable {
                 }
             }
         });
-
-        updateDemographicsTable();
+        percentageColumn.setCellValueFactory(cell ->
+                new SimpleObjectProperty<>((double) cell.getValue().getTotal()));
     }
 
-    private void updateDemographicsTable() {
-        demographicsTable.getItems().clear();
-
-        if (currentReport != null) {
-            // Sample demographic data
-            DemographicsRow row1 = new DemographicsRow("0-18", 25, 30, 2, 57);
-            DemographicsRow row2 = new DemographicsRow("19-35", 80, 95, 5, 180);
-            DemographicsRow row3 = new DemographicsRow("36-50", 90, 100, 3, 193);
-            DemographicsRow row4 = new DemographicsRow("51-65", 45, 55, 2, 102);
-            DemographicsRow row5 = new DemographicsRow("65+", 20, 25, 1, 46);
-
-            totalPatients = row1.getTotal() + row2.getTotal() + row3.getTotal() + row4.getTotal() + row5.getTotal();
-
-            demographicsTable.getItems().addAll(row1, row2, row3, row4, row5);
-        }
+    private void updateDemographicsTable(AgeGenderHistogram histogram) {
+        totalPatients = histogram.getTotal();
+        demographicsTable.getItems().setAll(histogram.toRows());
     }
 
     @FXML
@@ -554,18 +599,11 @@ public class DashboardController implements Initializable {
             if (timeRange == null) return;
 
             LocalDate endDate = LocalDate.now();
-            LocalDate startDate;
-
-            switch (timeRange) {
-                case "30 Days": startDate = endDate.minusDays(30); break;
-                case "3 Months": startDate = endDate.minusMonths(3); break;
-                case "6 Months": startDate = endDate.minusMonths(6); break;
-                case "12 Months": startDate = endDate.minusMonths(12); break;
-                default: startDate = endDate.minusDays(30); break;
-            }
+            LocalDate startDate = getAppointmentRangeStart(endDate);
 
             currentReport = reportingService.generateAnalyticsReport(startDate, endDate);
 
+            rankingPage = 0;
             updateAppointmentTrendChart();
             updateHourlyBarChart();
             updateStatusPieChart();
@@ -577,46 +615,177 @@ public class DashboardController implements Initializable {
         }
     }
 
+    // Start of the range chosen in the appointment analytics tab
+    private LocalDate getAppointmentRangeStart(LocalDate endDate) {
+        String timeRange = appointmentTimeRangeComboBox.getValue();
+        switch (timeRange != null ? timeRange : "") {
+            case "3 Months": return endDate.minusMonths(3);
+            case "6 Months": return endDate.minusMonths(6);
+            case "12 Months": return endDate.minusMonths(12);
+            default: return endDate.minusDays(30);
+        }
+    }
+
+    // Load the trend for the appointment tab's range off the FX thread, then redraw the chart
     private void updateAppointmentTrendChart() {
+        LocalDate endDate = LocalDate.now();
+        LocalDate startDate = getAppointmentRangeStart(endDate);
+        TimeSeries.Bucket bucket;
+        switch (trendBucketComboBox.getValue() != null ? trendBucketComboBox.getValue() : "") {
+            case "Daily": bucket = TimeSeries.Bucket.DAY; break;
+            case "Monthly": bucket = TimeSeries.Bucket.MONTH; break;
+            default: bucket = TimeSeries.Bucket.WEEK; break;
+        }
+
+        int generation = ++trendLoadGeneration;
+        Task<TimeSeries> load = new Task<>() {
+            @Override
+            protected TimeSeries call() {
+                return reportingService.generateAppointmentTrend(startDate, endDate, bucket);
+            }
+        };
+        load.setOnSucceeded(event -> {
+            if (generation == trendLoadGeneration) {
+                showAppointmentTrend(load.getValue());
+            }
+        });
+        load.setOnFailed(event -> load.getException().printStackTrace());
+
+        Thread thread = new Thread(load, "appointment-trend");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void showAppointmentTrend(TimeSeries trend) {
         appointmentTrendLine.getData().clear();
+        if (trend == null) {
+            appointmentTrendLine.setTitle("Appointment Trend (unavailable)");
+            return;
+        }
+        appointmentTrendLine.setTitle("Appointment Trend");
 
         XYChart.Series<String, Number> totalSeries = new XYChart.Series<>();
         totalSeries.setName("Total Appointments");
         XYChart.Series<String, Number> completedSeries = new XYChart.Series<>();
         completedSeries.setName("Completed");
 
-        // Sample monthly data
-        String[] months = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
-        int[] totalAppointments = {45, 52, 48, 65, 70, 68, 75, 80, 72, 85, 90, 95};
-        int[] completedAppointments = {38, 45, 42, 58, 62, 60, 68, 72, 65, 78, 82, 88};
-
-        for (int i = 0; i < months.length; i++) {
-            totalSeries.getData().add(new XYChart.Data<>(months[i], totalAppointments[i]));
-            completedSeries.getData().add(new XYChart.Data<>(months[i], completedAppointments[i]));
+        // Build the point lists first so each series is added to the chart once
+        List<XYChart.Data<String, Number>> totalPoints = new ArrayList<>(trend.size());
+        List<XYChart.Data<String, Number>> completedPoints = new ArrayList<>(trend.size());
+        for (int i = 0; i < trend.size(); i++) {
+            String label = trend.getLabel(i);
+            totalPoints.add(new XYChart.Data<>(label, trend.getTotal(i)));
+            completedPoints.add(new XYChart.Data<>(label, trend.getCompleted(i)));
         }
+        totalSeries.getData().setAll(totalPoints);
+        completedSeries.getData().setAll(completedPoints);
 
-        appointmentTrendLine.getData().addAll(totalSeries, completedSeries);
+        appointmentTrendLine.getData().addAll(List.of(totalSeries, completedSeries));
 
         // Style series
         totalSeries.getNode().setStyle("-fx-stroke: #2196F3; -fx-fill: #2196F3;");
         completedSeries.getNode().setStyle("-fx-stroke: #4CAF50; -fx-fill: #4CAF50;");
     }
 
+    private void setupSlotFilters() {
+        slotSizeComboBox.setItems(FXCollections.observableArrayList("Hourly", "15 Minutes"));
+        slotSizeComboBox.setValue("Hourly");
+
+        List<String> weekdays = new ArrayList<>();
+        weekdays.add("All Days");
+        for (DayOfWeek day : DayOfWeek.values()) {
+            weekdays.add(day.getDisplayName(TextStyle.FULL, Locale.getDefault()));
+        }
+        slotWeekdayComboBox.setItems(FXCollections.observableArrayList(weekdays));
+        slotWeekdayComboBox.getSelectionModel().selectFirst();
+
+        allDoctorsOption.setFullName("All Doctors");
+        List<User> doctors = new ArrayList<>();
+        doctors.add(allDoctorsOption);
+        doctors.addAll(new UserDAO().getActiveDoctors());
+        slotDoctorComboBox.setItems(FXCollections.observableArrayList(doctors));
+        slotDoctorComboBox.setCellFactory(lv -> new ListCell<User>() {
+            @Override
+            protected void updateItem(User doctor, boolean empty) {
+                super.updateItem(doctor, empty);
+                setText(empty ? "" : doctor.getFullName());
+            }
+        });
+        slotDoctorComboBox.setButtonCell(new ListCell<User>() {
+            @Override
+            protected void updateItem(User doctor, boolean empty) {
+                super.updateItem(doctor, empty);
+                setText(empty ? "" : doctor.getFullName());
+            }
+        });
+        slotDoctorComboBox.setValue(allDoctorsOption);
+
+        slotSizeComboBox.valueProperty().addListener((obs, oldVal, newVal) -> updateHourlyBarChart());
+        slotWeekdayComboBox.valueProperty().addListener((obs, oldVal, newVal) -> updateHourlyBarChart());
+        slotDoctorComboBox.valueProperty().addListener((obs, oldVal, newVal) -> updateHourlyBarChart());
+    }
+
+    // Load appointments per time slot for the appointment tab's range and
+    // filters off the FX thread, then redraw the chart
     private void updateHourlyBarChart() {
+        LocalDate endDate = LocalDate.now();
+        LocalDate startDate = getAppointmentRangeStart(endDate);
+        int slotMinutes = "15 Minutes".equals(slotSizeComboBox.getValue()) ? 15 : 60;
+        int weekdayIndex = slotWeekdayComboBox.getSelectionModel().getSelectedIndex();
+        DayOfWeek weekday = weekdayIndex > 0 ? DayOfWeek.of(weekdayIndex) : null;
+        User doctor = slotDoctorComboBox.getValue();
+        Integer doctorId = doctor != null && doctor != allDoctorsOption ? doctor.getUserId() : null;
+
+        int generation = ++slotLoadGeneration;
+        Task<SlotDistribution> load = new Task<>() {
+            @Override
+            protected SlotDistribution call() {
+                return reportingService.getSlotDistribution(startDate, endDate, doctorId, weekday, slotMinutes);
+            }
+        };
+        load.setOnSucceeded(event -> {
+            if (generation == slotLoadGeneration) {
+                showSlotDistribution(load.getValue());
+            }
+        });
+        load.setOnFailed(event -> load.getException().printStackTrace());
+
+        Thread thread = new Thread(load, "slot-distribution");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void showSlotDistribution(SlotDistribution distribution) {
         hourlyAppointmentBar.getData().clear();
+        if (distribution == null) {
+            hourlyAppointmentBar.setTitle("Appointments by Time of Day (unavailable)");
+            return;
+        }
 
-        XYChart.Series<String, Number> appointmentsSeries = new XYChart.Series<>();
-        appointmentsSeries.setName("Appointments per Hour");
+        boolean hourly = distribution.getSlotMinutes() == 60;
+        hourlyAppointmentBar.setTitle(hourly ? "Appointments per Hour" : "Appointments per 15 Minutes");
 
-        String[] hours = {"8AM", "9AM", "10AM", "11AM", "12PM", "1PM", "2PM", "3PM", "4PM", "5PM", "6PM"};
-        int[] hourlyCounts = {5, 15, 25, 30, 20, 18, 25, 22, 18, 12, 5};
+        // Show the busy part of the day, or office hours if there is nothing booked
+        int first = distribution.getFirstBusySlot();
+        int last = distribution.getLastBusySlot();
+        if (first < 0) {
+            first = distribution.slotOf(LocalTime.of(8, 0));
+            last = distribution.slotOf(LocalTime.of(18, 0));
+        }
 
-        for (int i = 0; i < hours.length; i++) {
-            appointmentsSeries.getData().add(new XYChart.Data<>(hours[i], hourlyCounts[i]));
+        DateTimeFormatter format = DateTimeFormatter.ofPattern(hourly ? "ha" : "h:mma", Locale.US);
+        XYChart.Series<String, Number> appointmentsSeries = new XYChart.Series<>();
+        appointmentsSeries.setName("Appointments");
+        for (int slot = first; slot <= last; slot++) {
+            String label = distribution.getSlotStart(slot).format(format);
+            appointmentsSeries.getData().add(new XYChart.Data<>(label, distribution.getCount(slot)));
         }
 
         hourlyAppointmentBar.getData().add(appointmentsSeries);
-        appointmentsSeries.getNode().setStyle("-fx-stroke: #FF9800; -fx-fill: #FF9800;");
+        // Bar series have no series node; the bars are styled one by one
+        for (XYChart.Data<String, Number> bar : appointmentsSeries.getData()) {
+            bar.getNode().setStyle("-fx-bar-fill: #FF9800;");
+        }
     }
 
     private void updateStatusPieChart() {
@@ -647,6 +816,7 @@ public class DashboardController implements Initializable {
     }
 
     private void setupDoctorRankingTable() {
+        rankPositionColumn.setCellValueFactory(new PropertyValueFactory<>("rankingPosition"));
         doctorNameRankColumn.setCellValueFactory(new PropertyValueFactory<>("doctorName"));
 
         completionRankColumn.setCellFactory(col -> new TableCell<DoctorRankingRow, Double>() {
@@ -663,21 +833,69 @@ public class DashboardController implements Initializable {
 
         patientCountRankColumn.setCellValueFactory(new PropertyValueFactory<>("patientCount"));
         appointmentCountRankColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentCount"));
+        // Supplies the values the completion cell factory above formats
+        completionRankColumn.setCellValueFactory(new PropertyValueFactory<>("completionRate"));
+        // Completion rate discounted for low volume; what the table is ordered by
+        rankingScoreColumn.setCellValueFactory(new PropertyValueFactory<>("rankingScore"));
+        rankingScoreColumn.setCellFactory(col -> new TableCell<DoctorRankingRow, Double>() {
+            @Override
+            protected void updateItem(Double item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(item == null || empty ? null : String.format("%.1f", item));
+            }
+        });
 
-        updateDoctorRankingTable();
+        previousRankingPageButton.setOnAction(e -> {
+            rankingPage--;
+            updateDoctorRankingTable();
+        });
+        nextRankingPageButton.setOnAction(e -> {
+            rankingPage++;
+            updateDoctorRankingTable();
+        });
+        previousRankingPageButton.setDisable(true);
+        nextRankingPageButton.setDisable(true);
     }
 
+    // Load the current page of the doctor ranking for the appointment tab's
+    // range off the FX thread. One extra row is fetched to tell if there is a next page.
     private void updateDoctorRankingTable() {
-        doctorRankingTable.getItems().clear();
-
-        // Sample doctor performance data
-        DoctorRankingRow doctor1 = new DoctorRankingRow(1, "Dr. John Smith", 92.5, 150, 350, 5);
-        DoctorRankingRow doctor2 = new DoctorRankingRow(2, "Dr. Sarah Johnson", 88.2, 120, 280, 4);
-        DoctorRankingRow doctor3 = new DoctorRankingRow(3, "Dr. Michael Brown", 95.1, 180, 420, 3);
-        DoctorRankingRow doctor4 = new DoctorRankingRow(4, "Dr. Emily Davis", 90.3, 95, 220, 2);
-        DoctorRankingRow doctor5 = new DoctorRankingRow(5, "Dr. Robert Wilson", 87.8, 110, 260, 1);
+        LocalDate endDate = LocalDate.now();
+        LocalDate startDate = getAppointmentRangeStart(endDate);
+        int page = Math.max(rankingPage, 0);
+        previousRankingPageButton.setDisable(true);
+        nextRankingPageButton.setDisable(true);
+
+        int generation = ++rankingLoadGeneration;
+        Task<List<DoctorRankingRow>> load = new Task<>() {
+            @Override
+            protected List<DoctorRankingRow> call() {
+                return reportingService.getDoctorRanking(startDate, endDate,
+                        RANKING_PAGE_SIZE + 1, page * RANKING_PAGE_SIZE);
+            }
+        };
+        load.setOnSucceeded(event -> {
+            if (generation != rankingLoadGeneration) {
+                return;
+            }
+            List<DoctorRankingRow> rows = load.getValue();
+            if (rows == null) {
+                doctorRankingTable.getItems().clear();
+                rankingPageLabel.setText("Ranking unavailable");
+                return;
+            }
+            boolean hasNext = rows.size() > RANKING_PAGE_SIZE;
+            doctorRankingTable.getItems().setAll(hasNext ? rows.subList(0, RANKING_PAGE_SIZE) : rows);
+            rankingPage = page;
+            rankingPageLabel.setText("Page " + (page + 1));
+            previousRankingPageButton.setDisable(page == 0);
+            nextRankingPageButton.setDisable(!hasNext);
+        });
+        load.setOnFailed(event -> load.getException().printStackTrace());
 
-        doctorRankingTable.getItems().addAll(doctor1, doctor2, doctor3, doctor4, doctor5);
+        Thread thread = new Thread(load, "doctor-ranking");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     @FXML
@@ -692,14 +910,22 @@ public class DashboardController implements Initializable {
         }
 
         loadingProgress.setVisible(true);
+        loadingLabel.setText("Generating report...");
         loadingLabel.setVisible(true);
 
         new Thread(() -> {
             try {
                 AnalyticsReport report = generateSampleCustomReport(reportType, startDate, endDate);
+                CohortRetention retention = "Patient Retention".equals(reportType)
+                        ? reportingService.generateRetentionCohorts(startDate, endDate) : null;
+                if ("Patient Retention".equals(reportType) && retention == null) {
+                    throw new IllegalStateException("retention cohorts could not be loaded");
+                }
 
                 Platform.runLater(() -> {
-                    generateCustomReportPreview(report);
+                    customReport = report;
+                    customRetention = retention;
+                    generateCustomReportPreview(report, retention);
                     loadingProgress.setVisible(false);
                     loadingLabel.setVisible(false);
                 });
@@ -741,6 +967,9 @@ public class DashboardController implements Initializable {
                 report.setCompletionRate(89.3);
                 // Would load doctor-specific data
                 break;
+            case "Patient Retention":
+                // Cohorts are loaded separately by generateRetentionCohorts
+                break;
             default:
                 report.setTotalPatients(472);
                 report.setTotalAppointments(1256);
@@ -790,6 +1019,7 @@ public class DashboardController implements Initializable {
                 createReportRow("Total Appointments:", String.valueOf(report.getTotalAppointments())),
                 createReportRow("Completed Appointments:", String.valueOf(report.getCompletedAppointments())),
                 createReportRow("Completion Rate:", String.format("%.1f%%", report.getCompletionRate())),
+                createReportRow("Unique Patients:", String.valueOf(report.getUniquePatients())),
                 createReportRow("Scheduled:", String.valueOf(report.getStatusDistribution().getOrDefault("Scheduled", 0))),
                 createReportRow("Cancelled:", String.valueOf(report.getStatusDistribution().getOrDefault("Cancelled", 0)))
         );
@@ -865,27 +1095,108 @@ public class DashboardController implements Initializable {
         return row;
     }
 
+    // Exports the last report, or the appointments or patients tables, to a
+    // CSV file (gzipped when named .gz) on a background task. Pressed again
+    // while an export runs, it cancels the export.
     @FXML
     private void exportToCSV() {
-        if (currentReport == null) {
-            showAlert("Error", "No report data to export", Alert.AlertType.WARNING);
+        if (exportTask != null && exportTask.isRunning()) {
+            exportTask.cancel();
             return;
         }
 
-        // Simple CSV export to console (for demo)
-        StringBuilder csv = new StringBuilder();
-        csv.append("Report Type,").append(currentReport.getReportType()).append("\n");
-        csv.append("Date Range,").append(currentReport.getStartDate()).append(" to ").append(currentReport.getEndDate()).append("\n");
-        csv.append("Total Patients,").append(currentReport.getTotalPatients()).append("\n");
-        csv.append("Avg Age,").append(currentReport.getAvgPatientAge()).append("\n");
-        csv.append("Total Appointments,").append(currentReport.getTotalAppointments()).append("\n");
-        csv.append("Completion Rate,").append(String.format("%.1f%%", currentReport.getCompletionRate())).append("\n");
+        // Only real data is offered as the current report: a Patient Retention
+        // custom report, else the loaded dashboard report. The other custom
+        // report types, and the stand-ins shown when the dashboard failed to
+        // load, which have no date range, are sample data.
+        AnalyticsReport report = customRetention != null ? customReport
+                : currentReport != null && currentReport.getStartDate() != null ? currentReport : null;
+        CohortRetention retention = customRetention;
+
+        List<String> choices = new ArrayList<>();
+        if (report != null) {
+            choices.add("Current Report");
+        }
+        choices.add(CsvExporter.Dataset.APPOINTMENTS.toString());
+        choices.add(CsvExporter.Dataset.PATIENTS.toString());
+        ChoiceDialog<String> choice = new ChoiceDialog<>(choices.get(0), choices);
+        choice.setTitle("Export CSV");
+        choice.setHeaderText(null);
+        choice.setContentText("Export:");
+        String source = choice.showAndWait().orElse(null);
+        if (source == null) {
+            return;
+        }
 
-        System.out.println("=== CSV EXPORT ===");
-        System.out.println(csv.toString());
+        CsvExporter.Dataset dataset = null;
+        for (CsvExporter.Dataset candidate : CsvExporter.Dataset.values()) {
+            if (candidate.toString().equals(source)) {
+                dataset = candidate;
+            }
+        }
 
-        showAlert("Export", "CSV data exported to console (implementation for file export would go here)",
-                Alert.AlertType.INFORMATION);
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export CSV");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV files", "*.csv"),
+                new FileChooser.ExtensionFilter("Gzipped CSV files", "*.csv.gz"));
+        chooser.setInitialFileName((dataset != null ? dataset.toString() : "Report").toLowerCase() + "-"
+                + LocalDate.now() + ".csv");
+        File file = chooser.showSaveDialog(reportPreviewArea.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        LocalDate startDate = customStartDatePicker.getValue() != null ? customStartDatePicker.getValue() : defaultStartDate;
+        LocalDate endDate = customEndDatePicker.getValue() != null ? customEndDatePicker.getValue() : defaultEndDate;
+        CsvExporter.Dataset exportDataset = dataset;
+
+        Task<ExportStats> export = new Task<>() {
+            @Override
+            protected ExportStats call() throws Exception {
+                CsvExporter exporter = new CsvExporter(this::isCancelled, (rows, totalRows) -> {
+                    updateProgress(rows, totalRows);
+                    updateMessage(totalRows >= 0
+                            ? String.format("Exported %,d of %,d rows...", rows, totalRows)
+                            : String.format("Exported %,d rows...", rows));
+                });
+                return exportDataset != null
+                        ? exporter.exportDataset(exportDataset, startDate, endDate, file.toPath())
+                        : exporter.exportReport(report, retention, file.toPath());
+            }
+        };
+
+        exportTask = export;
+        exportProgress.progressProperty().bind(export.progressProperty());
+        exportStatusLabel.textProperty().bind(export.messageProperty());
+        exportProgress.setVisible(true);
+        exportStatusLabel.setVisible(true);
+        exportCSVButton.setText("Cancel Export");
+
+        export.setOnSucceeded(event -> {
+            finishExport();
+            ExportStats stats = export.getValue();
+            showAlert("Export", stats + "\n\nSaved to " + file, Alert.AlertType.INFORMATION);
+        });
+        export.setOnCancelled(event -> finishExport());
+        export.setOnFailed(event -> {
+            finishExport();
+            export.getException().printStackTrace();
+            showAlert("Error", "Failed to export CSV: " + export.getException().getMessage(), Alert.AlertType.ERROR);
+        });
+
+        Thread thread = new Thread(export, "csv-export");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void finishExport() {
+        exportTask = null;
+        exportProgress.progressProperty().unbind();
+        exportStatusLabel.textProperty().unbind();
+        exportProgress.setVisible(false);
+        exportStatusLabel.setVisible(false);
+        exportCSVButton.setText("Export CSV");
     }
 
     @FXML
@@ -940,7 +1251,8 @@ public class DashboardController implements Initializable {
         alert.showAndWait();
     }
 
-    private void generateCustomReportPreview(AnalyticsReport report) {
+    // retention is only set for Patient Retention reports
+    private void generateCustomReportPreview(AnalyticsReport report, CohortRetention retention) {
         if (report == null) {
             showAlert("Error", "No report data available", Alert.AlertType.WARNING);
             return;
@@ -1020,8 +1332,20 @@ public class DashboardController implements Initializable {
             summarySection.getChildren().add(completionMetric);
         }
 
+        if (retention != null) {
+            summarySection.getChildren().addAll(
+                    createMetricRow("🔁 Patients in Cohorts",
+                            String.valueOf(retention.getTotalPatients()), "#4CAF50"),
+                    createMetricRow("↩️ Returned Next Month",
+                            String.format("%.1f%%", retention.getAverageRate(1)), "#2196F3"));
+        }
+
         reportContainer.getChildren().add(summarySection);
 
+        if (retention != null) {
+            reportContainer.getChildren().add(createRetentionSection(retention));
+        }
+
         // Distribution Analysis Section
         if (!report.getGenderDistribution().isEmpty() || !report.getStatusDistribution().isEmpty()) {
             VBox distributionSection = createDistributionSection(report);
@@ -1142,6 +1466,61 @@ public class DashboardController implements Initializable {
         return section;
     }
 
+    // Cohort grid: one row per first-appointment month, with the share of the
+    // cohort seen again in each following month, shaded by rate
+    private VBox createRetentionSection(CohortRetention retention) {
+        VBox section = new VBox(10);
+        section.setStyle("-fx-padding: 15px 20px; -fx-background-color: white; -fx-border-radius: 5px;");
+
+        Label title = new Label("🔁 Retention by Cohort");
+        title.setStyle("-fx-font-size: 16px; -fx-font-weight: bold; -fx-padding: 0 0 10px 0; -fx-text-fill: #1976d2;");
+        section.getChildren().add(title);
+
+        if (retention.getTotalPatients() == 0) {
+            section.getChildren().add(new Label("No patients had their first appointment in this period"));
+            return section;
+        }
+
+        int offsets = Math.min(retention.getMonthCount(), RETENTION_PREVIEW_MONTHS + 1);
+        GridPane grid = new GridPane();
+        grid.setHgap(4);
+        grid.setVgap(4);
+
+        grid.add(createRetentionHeader("Cohort"), 0, 0);
+        grid.add(createRetentionHeader("Patients"), 1, 0);
+        for (int offset = 1; offset < offsets; offset++) {
+            grid.add(createRetentionHeader("M" + offset), offset + 1, 0);
+        }
+
+        int row = 1;
+        for (int cohort = 0; cohort < retention.getMonthCount(); cohort++) {
+            if (retention.getCohortSize(cohort) == 0) {
+                continue;
+            }
+            grid.add(new Label(retention.getCohortLabel(cohort)), 0, row);
+            grid.add(new Label(String.valueOf(retention.getCohortSize(cohort))), 1, row);
+
+            int observed = Math.min(retention.getOffsetCount(cohort), offsets);
+            for (int offset = 1; offset < observed; offset++) {
+                double rate = retention.getRate(cohort, offset);
+                Label cell = new Label(String.format("%.0f%%", rate));
+                cell.setStyle(String.format(Locale.ROOT, "-fx-padding: 2px 6px; -fx-font-size: 11px; " +
+                        "-fx-background-color: rgba(25, 118, 210, %.2f);", 0.08 + rate / 100 * 0.7));
+                grid.add(cell, offset + 1, row);
+            }
+            row++;
+        }
+
+        section.getChildren().add(grid);
+        return section;
+    }
+
+    private Label createRetentionHeader(String text) {
+        Label header = new Label(text);
+        header.setStyle("-fx-font-weight: bold; -fx-font-size: 12px; -fx-padding: 2px 6px;");
+        return header;
+    }
+
     private VBox createInsightsSection(AnalyticsReport report) {
         VBox section = new VBox(8);
         section.setStyle("-fx-padding: 15px 20px; -fx-background-color: #f8f9fa; -fx-border-radius: 5px; -fx-margin-top: 10px;");
@@ -1225,77 +1604,6 @@ public class DashboardController implements Initializable {
         return button;
     }
 
-//    private void exportToCSV() {
-//        if (currentReport == null) {
-//            showAlert("Error", "No report data to export", Alert.AlertType.WARNING);
-//            return;
-//        }
-//
-//        // Create CSV content
-//        StringBuilder csv = new StringBuilder();
-//        csv.append("Healthcare Analytics Report\n");
-//        csv.append("=========================\n");
-//        csv.append("Report Type,").append(currentReport.getReportType()).append("\n");
-//        csv.append("Generated,").append(LocalDate.now()).append("\n");
-//        csv.append("Date Range,").append(currentReport.getStartDate()).append(" to ").append(currentReport.getEndDate()).append("\n\n");
-//
-//        // Summary metrics
-//        csv.append("SUMMARY METRICS\n");
-//        csv.append("---------------\n");
-//        if (currentReport.getTotalPatients() > 0) {
-//            csv.append("Total Patients,").append(currentReport.getTotalPatients()).append("\n");
-//        }
-//        if (currentReport.getAvgPatientAge() > 0) {
-//            csv.append("Average Patient Age,").append(String.format("%.1f", currentReport.getAvgPatientAge())).append("\n");
-//        }
-//        if (currentReport.getTotalAppointments() > 0) {
-//            csv.append("Total Appointments,").append(currentReport.getTotalAppointments()).append("\n");
-//        }
-//        if (currentReport.getCompletionRate() > 0) {
-//            csv.append("Completion Rate,").append(String.format("%.1f%%", currentReport.getCompletionRate())).append("\n");
-//        }
-//        csv.append("\n");
-//
-//        // Gender distribution
-//        if (!currentReport.getGenderDistribution().isEmpty()) {
-//            csv.append("GENDER DISTRIBUTION\n");
-//            csv.append("------------------\n");
-//            for (String gender : currentReport.getGenderDistribution().keySet()) {
-//                double percentage = currentReport.getGenderPercentage(gender);
-//                csv.append(gender).append(",")
-//                        .append(currentReport.getGenderDistribution().get(gender))
-//                        .append(",")
-//                        .append(String.format("%.1f%%", percentage)).append("\n");
-//            }
-//            csv.append("\n");
-//        }
-//
-//        // Appointment status
-//        if (!currentReport.getStatusDistribution().isEmpty()) {
-//            csv.append("APPOINTMENT STATUS\n");
-//            csv.append("-----------------\n");
-//            for (String status : currentReport.getStatusDistribution().keySet()) {
-//                double percentage = currentReport.getStatusPercentage(status);
-//                csv.append(status).append(",")
-//                        .append(currentReport.getStatusDistribution().get(status))
-//                        .append(",")
-//                        .append(String.format("%.1f%%", percentage)).append("\n");
-//            }
-//            csv.append("\n");
-//        }
-//
-//        // Output to console (in production, this would save to file)
-//        System.out.println("=== CSV EXPORT START ===");
-//        System.out.println(csv.toString());
-//        System.out.println("=== CSV EXPORT END ===");
-//
-//        showAlert("Export Complete",
-//                "CSV data has been generated.\n\n" +
-//                        "Total lines exported: " + csv.toString().split("\n").length + "\n" +
-//                        "(In production, this would be saved to a file)",
-//                Alert.AlertType.INFORMATION);
-//    }
-
 //    private void printReport() {
 //        if (currentReport == null) {
 //            showAlert("Error", "No report to print", Alert.AlertType.WARNING);
@@ -2,7 +2,9 @@ package com.example.healthcareapp.controller;
 
 import com.example.healthcareapp.dao.UserDAO;
 import com.example.healthcareapp.model.User;
+import com.example.healthcareapp.util.HashingExecutor;
 import com.example.healthcareapp.util.SessionManager;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -10,6 +12,7 @@ import javafx.scene.control.*;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
 
 public class LoginController {
 
@@ -40,9 +43,50 @@ public class LoginController {
             return;
         }
 
-        // Authenticate
-        User user = userDAO.authenticate(username, password);
+        // Authenticate on the hashing executor; BCrypt would otherwise freeze the window
+        Task<User> loginTask = new Task<>() {
+            @Override
+            protected User call() {
+                return userDAO.authenticate(username, password);
+            }
+        };
+        loginTask.setOnSucceeded(event -> {
+            User user = loginTask.getValue();
+            if (user == null) {
+                setSigningIn(false);
+            }
+            // On success the controls stay disabled until the main view replaces this one
+            onAuthenticated(user);
+        });
+        loginTask.setOnFailed(event -> {
+            setSigningIn(false);
+            loginTask.getException().printStackTrace();
+            errorLabel.setStyle("-fx-text-fill: red;");
+            errorLabel.setText("Login failed, please try again");
+        });
+
+        setSigningIn(true);
+        try {
+            HashingExecutor.getInstance().execute(loginTask);
+        } catch (RejectedExecutionException e) {
+            setSigningIn(false);
+            errorLabel.setStyle("-fx-text-fill: red;");
+            errorLabel.setText("Server is busy, please try again in a moment");
+        }
+    }
+
+    private void setSigningIn(boolean signingIn) {
+        loginButton.setDisable(signingIn);
+        loginButton.setText(signingIn ? "Signing in..." : "Login");
+        usernameField.setDisable(signingIn);
+        passwordField.setDisable(signingIn);
+        if (signingIn) {
+            errorLabel.setStyle("");
+            errorLabel.setText("");
+        }
+    }
 
+    private void onAuthenticated(User user) {
         if (user != null) {
             // Store logged-in user in session
             SessionManager.getInstance().setCurrentUser(user);
@@ -1,6 +1,7 @@
 package com.example.healthcareapp.controller;
 
 import com.example.healthcareapp.Refreshable;
+import com.example.healthcareapp.dao.LastLoginWriter;
 import com.example.healthcareapp.dao.PatientDAO;
 import com.example.healthcareapp.dao.UserDAO;
 import com.example.healthcareapp.model.Patient;
@@ -203,8 +204,9 @@ public class MainController implements Initializable {
     // Perform actual logout
     private void performLogout() {
         try {
-            // Clear session
+            // Clear session and write this user's last-login time now rather than on the next timer tick
             SessionManager.getInstance().logout();
+            LastLoginWriter.getInstance().requestFlush();
 
             // Load login view
             FXMLLoader loader = new FXMLLoader(
@@ -299,7 +301,7 @@ public class MainController implements Initializable {
 
     private void loadPatients() {
         patientList.clear();
-        patientList.addAll(patientDAO.getAllPatients());
+        patientList.addAll(patientDAO.getPatientSummaries());
     }
 
     private Patient createPatientFromForm() {
@@ -316,6 +318,12 @@ public class MainController implements Initializable {
     }
 
     private void populateForm(Patient patient) {
+        // Table rows are summaries; fetch address and medical history for the form
+        Patient fullRecord = patientDAO.getPatientById(patient.getPatientId());
+        if (fullRecord != null) {
+            patient = fullRecord;
+        }
+
         firstNameField.setText(patient.getFirstName());
         lastNameField.setText(patient.getLastName());
         dobPicker.setValue(patient.getDateOfBirth());
@@ -2,11 +2,15 @@ package com.example.healthcareapp.controller;
 
 import com.example.healthcareapp.Refreshable;
 import com.example.healthcareapp.dao.UserDAO;
+import com.example.healthcareapp.dao.UsernameRegistry;
 import com.example.healthcareapp.model.User;
+import javafx.animation.PauseTransition;
 import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 public class UserRegistrationController {
 
@@ -28,6 +32,10 @@ public class UserRegistrationController {
     private boolean usernameAvailable = false;
     private Refreshable refreshListener;
 
+    // Check availability once typing pauses for this long
+    private static final Duration USERNAME_CHECK_DELAY = Duration.millis(300);
+    private final PauseTransition usernameCheckDelay = new PauseTransition(USERNAME_CHECK_DELAY);
+
     @FXML
     public void initialize() {
         userDAO = new UserDAO();
@@ -42,6 +50,18 @@ public class UserRegistrationController {
         passwordField.textProperty().addListener((obs, oldVal, newVal) ->
                 updatePasswordStrength(newVal));
 
+        // Check the username as the user types, debounced
+        usernameCheckDelay.setOnFinished(event -> checkUsernameAvailability());
+        usernameField.textProperty().addListener((obs, oldVal, newVal) -> {
+            usernameAvailable = false;
+            usernameStatusLabel.setText("");
+            if (newVal.trim().isEmpty()) {
+                usernameCheckDelay.stop();
+            } else {
+                usernameCheckDelay.playFromStart();
+            }
+        });
+
         // Set default role
         roleComboBox.setValue("Doctor");
     }
@@ -52,6 +72,7 @@ public class UserRegistrationController {
 
     @FXML
     private void checkUsernameAvailability() {
+        usernameCheckDelay.stop();
         String username = usernameField.getText().trim();
 
         if (username.isEmpty()) {
@@ -61,16 +82,33 @@ public class UserRegistrationController {
             return;
         }
 
-        // Check if username exists in database
-        if (userDAO.usernameExists(username)) {
-            usernameStatusLabel.setStyle("-fx-text-fill: red;");
-            usernameStatusLabel.setText("❌ Username already taken");
-            usernameAvailable = false;
-        } else {
-            usernameStatusLabel.setStyle("-fx-text-fill: green;");
-            usernameStatusLabel.setText("✓ Username available");
-            usernameAvailable = true;
-        }
+        // Look the name up in the in-memory registry; only the first check loads it
+        Task<Boolean> lookup = new Task<>() {
+            @Override
+            protected Boolean call() {
+                return UsernameRegistry.getInstance().isTaken(username);
+            }
+        };
+        lookup.setOnSucceeded(event -> {
+            // Ignore answers for text the user has since changed
+            if (!username.equals(usernameField.getText().trim())) {
+                return;
+            }
+            if (lookup.getValue()) {
+                usernameStatusLabel.setStyle("-fx-text-fill: red;");
+                usernameStatusLabel.setText("❌ Username already taken");
+                usernameAvailable = false;
+            } else {
+                usernameStatusLabel.setStyle("-fx-text-fill: green;");
+                usernameStatusLabel.setText("✓ Username available");
+                usernameAvailable = true;
+            }
+        });
+        lookup.setOnFailed(event -> lookup.getException().printStackTrace());
+
+        Thread thread = new Thread(lookup, "username-check");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     private void updatePasswordStrength(String password) {
@@ -121,6 +159,16 @@ public class UserRegistrationController {
 
             String password = passwordField.getText();
 
+            // Definitive check, in case another client took the name since it was checked
+            if (userDAO.usernameExists(newUser.getUsername())) {
+                usernameAvailable = false;
+                usernameStatusLabel.setStyle("-fx-text-fill: red;");
+                usernameStatusLabel.setText("❌ Username already taken");
+                errorLabel.setStyle("-fx-text-fill: red;");
+                errorLabel.setText("Username was just taken, please choose another");
+                return;
+            }
+
             // Register user
             if (userDAO.createUser(newUser, password)) {
                 showAlert("Success",
@@ -1,8 +1,6 @@
 package com.example.healthcareapp.dao;
 
 import com.example.healthcareapp.model.Appointment;
-import com.example.healthcareapp.model.Patient;
-import com.example.healthcareapp.model.User;
 
 import java.sql.*;
 import java.time.LocalDate;
@@ -13,11 +11,33 @@ import java.util.List;
 
 public class AppointmentDAO {
 
+    private final AvailabilityEngine availability = AvailabilityEngine.getInstance();
+    private final ReportCache reportCache = ReportCache.getInstance();
+    private final DailyRollupStore rollups = DailyRollupStore.getInstance();
+
+    // Shared select for appointment lists, with patient, doctor and creator names
+    private static final String APPOINTMENT_SELECT = "SELECT a.*, " +
+            "p.first_name as p_first, p.last_name as p_last, " +
+            "d.full_name as d_name, d.email as d_email, " +
+            "u.full_name as creator_name " +
+            "FROM appointments a " +
+            "JOIN patients p ON a.patient_id = p.patient_id " +
+            "JOIN users d ON a.doctor_id = d.user_id " +
+            "JOIN users u ON a.created_by = u.user_id ";
+
+    // Seek predicate on (appointment_date, appointment_time, appointment_id), written
+    // out in full so MySQL can use a range scan on the matching index
+    private static final String AFTER_KEY =
+            "(a.appointment_date > ? OR (a.appointment_date = ? AND " +
+            "(a.appointment_time > ? OR (a.appointment_time = ? AND a.appointment_id > ?))))";
+
     // Create new appointment
     public boolean createAppointment(Appointment appointment) {
         String sql = "INSERT INTO appointments (patient_id, doctor_id, appointment_date, appointment_time, reason, status, notes, created_by) " +
                 "VALUES (?, ?, ?, ?, ?, 'Scheduled', ?, ?)";
 
+        boolean created = false;
+
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
@@ -37,7 +57,7 @@ public class AppointmentDAO {
                 if (generatedKeys.next()) {
                     appointment.setAppointmentId(generatedKeys.getInt(1));
                 }
-                return true;
+                created = true;
             }
 
         } catch (SQLException e) {
@@ -49,61 +69,54 @@ public class AppointmentDAO {
             }
         }
 
-        return false;
+        // Rollups are updated once the connection is back in the pool, and
+        // never undo the booking
+        if (created) {
+            availability.markBooked(appointment.getDoctorId(), appointment.getAppointmentDate(),
+                    appointment.getAppointmentTime().toLocalTime());
+            reportCache.invalidateAppointmentDate(appointment.getAppointmentDate());
+            rollups.recordCreated(appointment, "Scheduled");
+        }
+        return created;
     }
 
-    // Get all appointments
-    public List<Appointment> getAllAppointments() {
-        List<Appointment> appointments = new ArrayList<>();
-        String sql = "SELECT a.*, " +
-                "p.first_name as p_first, p.last_name as p_last, " +
-                "d.full_name as d_name, d.email as d_email, " +
-                "u.full_name as creator_name " +
-                "FROM appointments a " +
-                "JOIN patients p ON a.patient_id = p.patient_id " +
-                "JOIN users d ON a.doctor_id = d.user_id " +
-                "JOIN users u ON a.created_by = u.user_id " +
-                "ORDER BY a.appointment_date, a.appointment_time";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-
-            while (rs.next()) {
-                Appointment appointment = extractAppointmentFromResultSet(rs);
-                appointments.add(appointment);
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
+    // Get one page of appointments matching the query, filtered in SQL and
+    // keyset-paged on (date, time, id) after the given row (null for the first page)
+    public List<Appointment> findAppointments(AppointmentQuery query, Appointment after, int pageSize) {
+        List<Appointment> appointments = new ArrayList<>(pageSize);
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+
+        query.appendConditions(conditions, params);
+        if (after != null) {
+            java.sql.Date afterDate = java.sql.Date.valueOf(after.getAppointmentDate());
+            conditions.add(AFTER_KEY);
+            params.add(afterDate);
+            params.add(afterDate);
+            params.add(after.getAppointmentTime());
+            params.add(after.getAppointmentTime());
+            params.add(after.getAppointmentId());
         }
 
-        return appointments;
-    }
-
-    // Get appointments by doctor ID (for doctor's schedule)
-    public List<Appointment> getAppointmentsByDoctor(int doctorId) {
-        List<Appointment> appointments = new ArrayList<>();
-        String sql = "SELECT a.*, " +
-                "p.first_name as p_first, p.last_name as p_last, " +
-                "d.full_name as d_name, d.email as d_email, " +
-                "u.full_name as creator_name " +
-                "FROM appointments a " +
-                "JOIN patients p ON a.patient_id = p.patient_id " +
-                "JOIN users d ON a.doctor_id = d.user_id " +
-                "JOIN users u ON a.created_by = u.user_id " +
-                "WHERE a.doctor_id = ? " +
-                "ORDER BY a.appointment_date, a.appointment_time";
+        String sql = APPOINTMENT_SELECT +
+                (conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ") +
+                "ORDER BY a.appointment_date, a.appointment_time, a.appointment_id " +
+                "LIMIT ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setInt(1, doctorId);
-            ResultSet rs = pstmt.executeQuery();
+            int index = 1;
+            for (Object param : params) {
+                pstmt.setObject(index++, param);
+            }
+            pstmt.setInt(index, pageSize);
 
-            while (rs.next()) {
-                Appointment appointment = extractAppointmentFromResultSet(rs);
-                appointments.add(appointment);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                AppointmentRowMapper mapper = new AppointmentRowMapper(rs);
+                while (rs.next()) {
+                    appointments.add(mapper.mapRow(rs));
+                }
             }
 
         } catch (SQLException e) {
@@ -116,14 +129,7 @@ public class AppointmentDAO {
     // Get appointments for a specific date
     public List<Appointment> getAppointmentsByDate(LocalDate date) {
         List<Appointment> appointments = new ArrayList<>();
-        String sql = "SELECT a.*, " +
-                "p.first_name as p_first, p.last_name as p_last, " +
-                "d.full_name as d_name, d.email as d_email, " +
-                "u.full_name as creator_name " +
-                "FROM appointments a " +
-                "JOIN patients p ON a.patient_id = p.patient_id " +
-                "JOIN users d ON a.doctor_id = d.user_id " +
-                "JOIN users u ON a.created_by = u.user_id " +
+        String sql = APPOINTMENT_SELECT +
                 "WHERE a.appointment_date = ? " +
                 "ORDER BY a.appointment_time";
 
@@ -131,11 +137,11 @@ public class AppointmentDAO {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setDate(1, java.sql.Date.valueOf(date));
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                Appointment appointment = extractAppointmentFromResultSet(rs);
-                appointments.add(appointment);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                AppointmentRowMapper mapper = new AppointmentRowMapper(rs);
+                while (rs.next()) {
+                    appointments.add(mapper.mapRow(rs));
+                }
             }
 
         } catch (SQLException e) {
@@ -147,144 +153,161 @@ public class AppointmentDAO {
 
     // Get available time slots for a doctor on a specific date
     public List<LocalTime> getAvailableTimeSlots(int doctorId, LocalDate date) {
-        List<LocalTime> availableSlots = new ArrayList<>();
-
-        // Clinic working hours: 9 AM to 6 PM, 15-minute intervals
-        LocalTime startTime = LocalTime.of(9, 0);
-        LocalTime endTime = LocalTime.of(18, 0);
-        LocalTime slotDuration = LocalTime.of(0, 15); // 15 minutes
-
-        // Generate all possible slots
-        LocalTime currentTime = startTime;
-        while (currentTime.isBefore(endTime)) {
-            availableSlots.add(currentTime);
-            currentTime = currentTime.plusMinutes(15);
-        }
-
-        // Get booked slots
-        String sql = "SELECT appointment_time FROM appointments WHERE doctor_id = ? AND appointment_date = ? AND status != 'Cancelled'";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setInt(1, doctorId);
-            pstmt.setDate(2, java.sql.Date.valueOf(date));
-
-            ResultSet rs = pstmt.executeQuery();
-            List<Time> bookedSlots = new ArrayList<>();
-
-            while (rs.next()) {
-                bookedSlots.add(rs.getTime("appointment_time"));
-            }
-
-            // Remove booked slots
-            availableSlots.removeIf(slot -> {
-                for (Time booked : bookedSlots) {
-                    if (slot.equals(Time.valueOf(booked.toLocalTime()))) {
-                        return true;
-                    }
-                }
-                return false;
-            });
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        return availableSlots;
+        return availability.getFreeSlots(doctorId, date);
     }
 
     // Update appointment status
     public boolean updateAppointmentStatus(int appointmentId, String status) {
         String sql = "UPDATE appointments SET status = ?, updated_date = NOW() WHERE appointment_id = ?";
 
+        Appointment slot = null;
+        boolean changed = false;
+
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
+            // The row lock from findSlot keeps the previous status valid until commit
+            conn.setAutoCommit(false);
+            slot = findSlot(conn, appointmentId);
+
             pstmt.setString(1, status);
             pstmt.setInt(2, appointmentId);
 
-            return pstmt.executeUpdate() > 0;
+            if (pstmt.executeUpdate() > 0) {
+                conn.commit();
+                changed = true;
+            }
 
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
+
+        if (changed) {
+            afterStatusChange(slot, status);
+        }
+        return changed;
     }
 
     // Cancel appointment
     public boolean cancelAppointment(int appointmentId, String cancelReason) {
         String sql = "UPDATE appointments SET status = 'Cancelled', notes = CONCAT(IFNULL(notes, ''), ?), updated_date = NOW() WHERE appointment_id = ?";
 
+        Appointment slot = null;
+        boolean changed = false;
+
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
+            // The row lock from findSlot keeps the previous status valid until commit
+            conn.setAutoCommit(false);
+            slot = findSlot(conn, appointmentId);
+
             pstmt.setString(1, "\n[CANCELLED: " + cancelReason + "]");
             pstmt.setInt(2, appointmentId);
 
-            return pstmt.executeUpdate() > 0;
+            if (pstmt.executeUpdate() > 0) {
+                conn.commit();
+                changed = true;
+            }
 
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
+
+        if (changed) {
+            afterStatusChange(slot, "Cancelled");
+        }
+        return changed;
     }
 
     // Delete appointment
     public boolean deleteAppointment(int appointmentId) {
         String sql = "DELETE FROM appointments WHERE appointment_id = ?";
 
+        Appointment slot = null;
+        boolean changed = false;
+
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
+            // The row lock from findSlot keeps the previous status valid until commit
+            conn.setAutoCommit(false);
+            slot = findSlot(conn, appointmentId);
+
             pstmt.setInt(1, appointmentId);
-            return pstmt.executeUpdate() > 0;
+            if (pstmt.executeUpdate() > 0) {
+                conn.commit();
+                changed = true;
+            }
 
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
-    }
-
-    // Helper method to extract appointment from ResultSet
-    private Appointment extractAppointmentFromResultSet(ResultSet rs) throws SQLException {
-        Appointment appointment = new Appointment();
-        appointment.setAppointmentId(rs.getInt("appointment_id"));
-        appointment.setPatientId(rs.getInt("patient_id"));
-        appointment.setDoctorId(rs.getInt("doctor_id"));
 
-        Date date = rs.getDate("appointment_date");
-        appointment.setAppointmentDate(date != null ? date.toLocalDate() : null);
-
-        Time time = rs.getTime("appointment_time");
-        appointment.setAppointmentTime(time);
-
-        appointment.setReason(rs.getString("reason"));
-        appointment.setStatus(rs.getString("status"));
-        appointment.setNotes(rs.getString("notes"));
-        appointment.setCreatedBy(rs.getInt("created_by"));
-
-        Timestamp created = rs.getTimestamp("created_date");
-        appointment.setCreatedDate(created != null ? created.toLocalDateTime() : null);
+        if (changed) {
+            if (slot != null) {
+                rollups.recordDeleted(slot);
+            }
+            updateAvailability(slot, "Cancelled");
+            invalidateReports(slot);
+        }
+        return changed;
+    }
 
-        Timestamp updated = rs.getTimestamp("updated_date");
-        appointment.setUpdatedDate(updated != null ? updated.toLocalDateTime() : null);
+    // Follow-up for a committed status change, run after the connection is
+    // back in the pool; slot is the appointment before the change
+    private void afterStatusChange(Appointment slot, String newStatus) {
+        if (slot != null) {
+            rollups.recordStatusChange(slot, newStatus);
+        }
+        updateAvailability(slot, newStatus);
+        invalidateReports(slot);
+    }
 
-        // Set helper objects
-        Patient patient = new Patient();
-        patient.setFirstName(rs.getString("p_first"));
-        patient.setLastName(rs.getString("p_last"));
-        appointment.setPatient(patient);
+    // Look up the patient, doctor/date/time slot and current status of an appointment,
+    // locking the row so the status cannot change before the caller commits
+    private Appointment findSlot(Connection conn, int appointmentId) throws SQLException {
+        String sql = "SELECT patient_id, doctor_id, appointment_date, appointment_time, status FROM appointments WHERE appointment_id = ? FOR UPDATE";
 
-        User doctor = new User();
-        doctor.setFullName(rs.getString("d_name"));
-        doctor.setEmail(rs.getString("d_email"));
-        appointment.setDoctor(doctor);
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, appointmentId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    Appointment slot = new Appointment();
+                    slot.setAppointmentId(appointmentId);
+                    slot.setPatientId(rs.getInt("patient_id"));
+                    slot.setDoctorId(rs.getInt("doctor_id"));
+                    slot.setAppointmentDate(rs.getDate("appointment_date").toLocalDate());
+                    slot.setAppointmentTime(rs.getTime("appointment_time"));
+                    slot.setStatus(rs.getString("status"));
+                    return slot;
+                }
+            }
+        }
+        return null;
+    }
 
-        User creator = new User();
-        creator.setFullName(rs.getString("creator_name"));
-        appointment.setCreator(creator);
+    // Drop cached reports covering the appointment's date, or all of them if it was not found
+    private void invalidateReports(Appointment slot) {
+        reportCache.invalidateAppointmentDate(slot != null ? slot.getAppointmentDate() : null);
+    }
 
-        return appointment;
+    // Keep the in-memory availability bitmap in step with a status change
+    private void updateAvailability(Appointment slot, String newStatus) {
+        if (slot == null || slot.getAppointmentTime() == null) {
+            return;
+        }
+        boolean wasBooked = !"Cancelled".equals(slot.getStatus());
+        boolean isBooked = !"Cancelled".equals(newStatus);
+        LocalTime time = slot.getAppointmentTime().toLocalTime();
+
+        if (wasBooked && !isBooked) {
+            availability.markFree(slot.getDoctorId(), slot.getAppointmentDate(), time);
+        } else if (!wasBooked && isBooked) {
+            availability.markBooked(slot.getDoctorId(), slot.getAppointmentDate(), time);
+        }
     }
 }
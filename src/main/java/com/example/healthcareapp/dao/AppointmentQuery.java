@@ -0,0 +1,92 @@
+package com.example.healthcareapp.dao;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Filter for appointment lists. Each criterion that is set becomes one
+// parameterized WHERE condition, so filtering happens in the database.
+public class AppointmentQuery {
+    private String status;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private Integer doctorId;
+    private Integer createdBy;
+    private Integer patientId;
+
+    public AppointmentQuery status(String status) {
+        this.status = status;
+        return this;
+    }
+
+    public AppointmentQuery onDate(LocalDate date) {
+        return dateRange(date, date);
+    }
+
+    // Either end may be null for an open range
+    public AppointmentQuery dateRange(LocalDate fromDate, LocalDate toDate) {
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+        return this;
+    }
+
+    public AppointmentQuery doctor(int doctorId) {
+        this.doctorId = doctorId;
+        return this;
+    }
+
+    public AppointmentQuery createdBy(int userId) {
+        this.createdBy = userId;
+        return this;
+    }
+
+    public AppointmentQuery patient(int patientId) {
+        this.patientId = patientId;
+        return this;
+    }
+
+    public String getStatus() { return status; }
+    public LocalDate getFromDate() { return fromDate; }
+    public LocalDate getToDate() { return toDate; }
+    public Integer getDoctorId() { return doctorId; }
+    public Integer getCreatedBy() { return createdBy; }
+    public Integer getPatientId() { return patientId; }
+
+    // Add this query's conditions and their bind values, in matching order
+    void appendConditions(List<String> conditions, List<Object> params) {
+        if (status != null) {
+            conditions.add("a.status = ?");
+            params.add(status);
+        }
+        if (fromDate != null && fromDate.equals(toDate)) {
+            conditions.add("a.appointment_date = ?");
+            params.add(java.sql.Date.valueOf(fromDate));
+        } else {
+            if (fromDate != null) {
+                conditions.add("a.appointment_date >= ?");
+                params.add(java.sql.Date.valueOf(fromDate));
+            }
+            if (toDate != null) {
+                conditions.add("a.appointment_date <= ?");
+                params.add(java.sql.Date.valueOf(toDate));
+            }
+        }
+        if (doctorId != null) {
+            conditions.add("a.doctor_id = ?");
+            params.add(doctorId);
+        }
+        if (createdBy != null) {
+            conditions.add("a.created_by = ?");
+            params.add(createdBy);
+        }
+        if (patientId != null) {
+            conditions.add("a.patient_id = ?");
+            params.add(patientId);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AppointmentQuery[status=" + status + ", from=" + fromDate + ", to=" + toDate +
+                ", doctor=" + doctorId + ", createdBy=" + createdBy + ", patient=" + patientId + "]";
+    }
+}
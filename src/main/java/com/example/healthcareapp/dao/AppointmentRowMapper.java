@@ -0,0 +1,134 @@
+package com.example.healthcareapp.dao;
+
+import com.example.healthcareapp.model.Appointment;
+import com.example.healthcareapp.model.Patient;
+import com.example.healthcareapp.model.User;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+
+// Maps rows of AppointmentDAO's joined appointment select. One mapper serves
+// one query, so the patient, doctor and creator helper objects are shared by
+// every row that refers to the same id instead of being rebuilt per row.
+class AppointmentRowMapper implements RowMapper<Appointment> {
+    private final int appointmentId;
+    private final int patientId;
+    private final int doctorId;
+    private final int appointmentDate;
+    private final int appointmentTime;
+    private final int reason;
+    private final int status;
+    private final int notes;
+    private final int createdBy;
+    private final int createdDate;
+    private final int updatedDate;
+    private final int patientFirst;
+    private final int patientLast;
+    private final int doctorName;
+    private final int doctorEmail;
+    private final int creatorName;
+
+    private final Map<Integer, Patient> patients = new HashMap<>();
+    private final Map<Integer, User> doctors = new HashMap<>();
+    private final Map<Integer, User> creators = new HashMap<>();
+    // Statuses outside the known set, shared within this query only
+    private final Map<String, String> otherStatuses = new HashMap<>();
+
+    AppointmentRowMapper(ResultSet rs) throws SQLException {
+        ColumnIndex columns = new ColumnIndex(rs.getMetaData());
+        appointmentId = columns.require("appointment_id");
+        patientId = columns.require("patient_id");
+        doctorId = columns.require("doctor_id");
+        appointmentDate = columns.require("appointment_date");
+        appointmentTime = columns.require("appointment_time");
+        reason = columns.require("reason");
+        status = columns.require("status");
+        notes = columns.require("notes");
+        createdBy = columns.require("created_by");
+        createdDate = columns.require("created_date");
+        updatedDate = columns.require("updated_date");
+        patientFirst = columns.require("p_first");
+        patientLast = columns.require("p_last");
+        doctorName = columns.require("d_name");
+        doctorEmail = columns.require("d_email");
+        creatorName = columns.require("creator_name");
+    }
+
+    @Override
+    public Appointment mapRow(ResultSet rs) throws SQLException {
+        Appointment appointment = new Appointment();
+        appointment.setAppointmentId(rs.getInt(appointmentId));
+        appointment.setPatientId(rs.getInt(patientId));
+        appointment.setDoctorId(rs.getInt(doctorId));
+
+        Date date = rs.getDate(appointmentDate);
+        appointment.setAppointmentDate(date != null ? date.toLocalDate() : null);
+        appointment.setAppointmentTime(rs.getTime(appointmentTime));
+
+        appointment.setReason(rs.getString(reason));
+        appointment.setStatus(shareStatus(rs.getString(status)));
+        appointment.setNotes(rs.getString(notes));
+        appointment.setCreatedBy(rs.getInt(createdBy));
+
+        Timestamp created = rs.getTimestamp(createdDate);
+        appointment.setCreatedDate(created != null ? created.toLocalDateTime() : null);
+
+        Timestamp updated = rs.getTimestamp(updatedDate);
+        appointment.setUpdatedDate(updated != null ? updated.toLocalDateTime() : null);
+
+        // Set helper objects, reading their columns only the first time an id is seen
+        int patientKey = appointment.getPatientId();
+        Patient patient = patients.get(patientKey);
+        if (patient == null) {
+            patient = new Patient();
+            patient.setPatientId(patientKey);
+            patient.setFirstName(rs.getString(patientFirst));
+            patient.setLastName(rs.getString(patientLast));
+            patients.put(patientKey, patient);
+        }
+        appointment.setPatient(patient);
+
+        int doctorKey = appointment.getDoctorId();
+        User doctor = doctors.get(doctorKey);
+        if (doctor == null) {
+            doctor = new User();
+            doctor.setUserId(doctorKey);
+            doctor.setFullName(rs.getString(doctorName));
+            doctor.setEmail(rs.getString(doctorEmail));
+            doctors.put(doctorKey, doctor);
+        }
+        appointment.setDoctor(doctor);
+
+        int creatorKey = appointment.getCreatedBy();
+        User creator = creators.get(creatorKey);
+        if (creator == null) {
+            creator = new User();
+            creator.setUserId(creatorKey);
+            creator.setFullName(rs.getString(creatorName));
+            creators.put(creatorKey, creator);
+        }
+        appointment.setCreator(creator);
+
+        return appointment;
+    }
+
+    // Statuses come from a small fixed set; share one String per value.
+    // Unknown values are shared through the mapper rather than String.intern,
+    // so arbitrary column contents never reach the JVM string table.
+    private String shareStatus(String value) {
+        if (value == null) {
+            return null;
+        }
+        switch (value) {
+            case "Scheduled": return "Scheduled";
+            case "Completed": return "Completed";
+            case "Cancelled": return "Cancelled";
+            case "No Show": return "No Show";
+            default: return otherStatuses.computeIfAbsent(value, v -> v);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.example.healthcareapp.dao;
+
+import com.example.healthcareapp.model.AvailableSlot;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Keeps each doctor-day's booked 15-minute slots as bits of a long, so slot
+// lookups are bit operations instead of list scans. Days are loaded from the
+// database, kept current by this client's AppointmentDAO writes, and reloaded
+// after DAY_TTL_MILLIS to pick up bookings made from other clients.
+public class AvailabilityEngine {
+
+    // Clinic working hours: 9 AM to 6 PM, 15-minute intervals
+    public static final LocalTime OPENING_TIME = LocalTime.of(9, 0);
+    public static final LocalTime CLOSING_TIME = LocalTime.of(18, 0);
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY =
+            (CLOSING_TIME.toSecondOfDay() - OPENING_TIME.toSecondOfDay()) / 60 / SLOT_MINUTES;
+    static final long ALL_SLOTS = (1L << SLOTS_PER_DAY) - 1;
+
+    private static final LocalTime[] SLOT_TIMES = new LocalTime[SLOTS_PER_DAY];
+    private static final int MAX_CACHED_DAYS = 20_000;
+    // Bookings from other clients show up within this long
+    private static final long DAY_TTL_MILLIS = 30_000;
+
+    static {
+        for (int i = 0; i < SLOTS_PER_DAY; i++) {
+            SLOT_TIMES[i] = OPENING_TIME.plusMinutes((long) i * SLOT_MINUTES);
+        }
+    }
+
+    private static AvailabilityEngine instance;
+
+    // (doctorId, epochDay) -> booked slots of that day
+    private final ConcurrentHashMap<Long, Day> bookedSlots = new ConcurrentHashMap<>();
+    // Bumped by every local change to a day; a load that started before a
+    // change may have missed it, so its result is used but not cached
+    private final AtomicLong changes = new AtomicLong();
+
+    private AvailabilityEngine() {}
+
+    public static synchronized AvailabilityEngine getInstance() {
+        if (instance == null) {
+            instance = new AvailabilityEngine();
+        }
+        return instance;
+    }
+
+    // Slot index for a time on the grid, or -1 if outside hours or off-grid
+    public static int slotIndex(LocalTime time) {
+        if (time == null) {
+            return -1;
+        }
+        int minutes = (time.toSecondOfDay() - OPENING_TIME.toSecondOfDay()) / 60;
+        if (minutes < 0 || minutes % SLOT_MINUTES != 0 || time.getSecond() != 0) {
+            return -1;
+        }
+        int index = minutes / SLOT_MINUTES;
+        return index < SLOTS_PER_DAY ? index : -1;
+    }
+
+    public static LocalTime slotTime(int index) {
+        return SLOT_TIMES[index];
+    }
+
+    public List<LocalTime> getFreeSlots(int doctorId, LocalDate date) {
+        return toTimes(getFreeMask(doctorId, date));
+    }
+
+    public LocalTime getFirstFreeSlot(int doctorId, LocalDate date) {
+        long free = getFreeMask(doctorId, date);
+        return free == 0 ? null : SLOT_TIMES[Long.numberOfTrailingZeros(free)];
+    }
+
+    public boolean isSlotFree(int doctorId, LocalDate date, LocalTime time) {
+        int index = slotIndex(time);
+        return index >= 0 && (getFreeMask(doctorId, date) & (1L << index)) != 0;
+    }
+
+    public long getFreeMask(int doctorId, LocalDate date) {
+        return ~getBookedMask(doctorId, date) & ALL_SLOTS;
+    }
+
+    // Earliest open slots across several doctors and days, optionally limited to
+    // working hours (a slot counts if it starts and ends inside them). Missing
+    // days are fetched with one range query; the search itself is bit arithmetic.
+    public List<AvailableSlot> findEarliestSlots(Collection<Integer> doctorIds, LocalDate fromDate, LocalDate toDate,
+                                                 LocalTime workStart, LocalTime workEnd, int limit) {
+        List<AvailableSlot> slots = new ArrayList<>();
+        if (doctorIds.isEmpty() || limit <= 0 || toDate.isBefore(fromDate)) {
+            return slots;
+        }
+
+        int[] doctors = doctorIds.stream().mapToInt(Integer::intValue).distinct().toArray();
+        if (!preload(doctors, fromDate, toDate)) {
+            return slots;
+        }
+
+        long hoursMask = hoursMask(workStart, workEnd);
+        LocalDateTime now = LocalDateTime.now();
+        long[] free = new long[doctors.length];
+
+        for (LocalDate date = fromDate; !date.isAfter(toDate) && slots.size() < limit; date = date.plusDays(1)) {
+            if (date.isBefore(now.toLocalDate())) {
+                continue;
+            }
+            long dayMask = hoursMask & (date.equals(now.toLocalDate()) ? futureMask(now.toLocalTime()) : ALL_SLOTS);
+
+            for (int d = 0; d < doctors.length; d++) {
+                free[d] = ~getBookedMask(doctors[d], date) & dayMask;
+            }
+
+            // Repeatedly take the lowest free bit across all doctors
+            while (slots.size() < limit) {
+                int best = -1;
+                int bestSlot = SLOTS_PER_DAY;
+                for (int d = 0; d < doctors.length; d++) {
+                    if (free[d] != 0) {
+                        int slot = Long.numberOfTrailingZeros(free[d]);
+                        if (slot < bestSlot) {
+                            bestSlot = slot;
+                            best = d;
+                        }
+                    }
+                }
+                if (best < 0) {
+                    break;
+                }
+                free[best] &= free[best] - 1;
+                slots.add(new AvailableSlot(doctors[best], date, SLOT_TIMES[bestSlot]));
+            }
+        }
+
+        return slots;
+    }
+
+    // Load every doctor-day in the range that is not cached yet with a single query
+    private boolean preload(int[] doctors, LocalDate fromDate, LocalDate toDate) {
+        Set<Integer> missingDoctors = new LinkedHashSet<>();
+        for (int doctorId : doctors) {
+            for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+                if (!isLoaded(doctorId, date)) {
+                    missingDoctors.add(doctorId);
+                    break;
+                }
+            }
+        }
+        if (missingDoctors.isEmpty()) {
+            return true;
+        }
+
+        long changesBefore = changes.get();
+        StringBuilder sql = new StringBuilder(
+                "SELECT doctor_id, appointment_date, appointment_time FROM appointments WHERE doctor_id IN (");
+        for (int i = 0; i < missingDoctors.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(") AND appointment_date BETWEEN ? AND ? AND status != 'Cancelled'");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+
+            int index = 1;
+            for (int doctorId : missingDoctors) {
+                pstmt.setInt(index++, doctorId);
+            }
+            pstmt.setDate(index++, java.sql.Date.valueOf(fromDate));
+            pstmt.setDate(index, java.sql.Date.valueOf(toDate));
+
+            Map<Long, Long> loaded = new HashMap<>();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    long key = key(rs.getInt(1), rs.getDate(2).toLocalDate());
+                    loaded.merge(key, slotBit(rs.getTime(3)), (a, b) -> a | b);
+                }
+            }
+
+            for (int doctorId : missingDoctors) {
+                for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+                    putDay(doctorId, date, loaded.getOrDefault(key(doctorId, date), 0L), changesBefore);
+                }
+            }
+            return true;
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // Slots that start at or after workStart and end by workEnd
+    static long hoursMask(LocalTime workStart, LocalTime workEnd) {
+        long mask = 0;
+        for (int i = 0; i < SLOTS_PER_DAY; i++) {
+            LocalTime start = SLOT_TIMES[i];
+            LocalTime end = start.plusMinutes(SLOT_MINUTES);
+            if ((workStart == null || !start.isBefore(workStart)) && (workEnd == null || !end.isAfter(workEnd))) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    // Slots that have not started yet today
+    private static long futureMask(LocalTime now) {
+        long mask = 0;
+        for (int i = 0; i < SLOTS_PER_DAY; i++) {
+            if (SLOT_TIMES[i].isAfter(now)) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    long getBookedMask(int doctorId, LocalDate date) {
+        Day day = bookedSlots.get(key(doctorId, date));
+        if (day != null && day.isFresh()) {
+            return day.booked;
+        }
+        return loadDay(doctorId, date);
+    }
+
+    private long loadDay(int doctorId, LocalDate date) {
+        String sql = "SELECT appointment_time FROM appointments WHERE doctor_id = ? AND appointment_date = ? AND status != 'Cancelled'";
+        long changesBefore = changes.get();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, doctorId);
+            pstmt.setDate(2, java.sql.Date.valueOf(date));
+
+            long booked = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    booked |= slotBit(rs.getTime(1));
+                }
+            }
+
+            putDay(doctorId, date, booked, changesBefore);
+            return booked;
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+            // Nothing cached, so the next call retries the database
+            return 0;
+        }
+    }
+
+    // Cache a day read from the database, unless a fresh copy is already
+    // cached or a local change since changesBefore may be missing from it.
+    // The check runs inside compute, so a markBooked either bumps the counter
+    // before it or updates the cached day after it.
+    void putDay(int doctorId, LocalDate date, long booked, long changesBefore) {
+        if (bookedSlots.size() >= MAX_CACHED_DAYS) {
+            trim();
+        }
+        bookedSlots.compute(key(doctorId, date), (k, existing) -> {
+            if (existing != null && existing.isFresh()) {
+                return existing;
+            }
+            return changes.get() == changesBefore ? new Day(booked) : null;
+        });
+    }
+
+    boolean isLoaded(int doctorId, LocalDate date) {
+        Day day = bookedSlots.get(key(doctorId, date));
+        return day != null && day.isFresh();
+    }
+
+    public void markBooked(int doctorId, LocalDate date, LocalTime time) {
+        int index = slotIndex(time);
+        if (index >= 0) {
+            changes.incrementAndGet();
+            // Days that were never loaded will be read fresh from the database
+            bookedSlots.computeIfPresent(key(doctorId, date), (k, day) -> day.with(day.booked | (1L << index)));
+        }
+    }
+
+    public void markFree(int doctorId, LocalDate date, LocalTime time) {
+        int index = slotIndex(time);
+        if (index >= 0) {
+            changes.incrementAndGet();
+            bookedSlots.computeIfPresent(key(doctorId, date), (k, day) -> day.with(day.booked & ~(1L << index)));
+        }
+    }
+
+    public void invalidate(int doctorId, LocalDate date) {
+        changes.incrementAndGet();
+        bookedSlots.remove(key(doctorId, date));
+    }
+
+    public void clear() {
+        changes.incrementAndGet();
+        bookedSlots.clear();
+    }
+
+    // Past days are no longer bookable, so drop them first
+    private void trim() {
+        long today = LocalDate.now().toEpochDay();
+        bookedSlots.entrySet().removeIf(e -> (int) (long) e.getKey() < today || !e.getValue().isFresh());
+        if (bookedSlots.size() >= MAX_CACHED_DAYS) {
+            bookedSlots.clear();
+        }
+    }
+
+    static long slotBit(Time time) {
+        int index = time != null ? slotIndex(time.toLocalTime()) : -1;
+        return index >= 0 ? 1L << index : 0;
+    }
+
+    static List<LocalTime> toTimes(long mask) {
+        List<LocalTime> times = new ArrayList<>(Long.bitCount(mask));
+        while (mask != 0) {
+            times.add(SLOT_TIMES[Long.numberOfTrailingZeros(mask)]);
+            mask &= mask - 1;
+        }
+        return times;
+    }
+
+    static long key(int doctorId, LocalDate date) {
+        return ((long) doctorId << 32) | (date.toEpochDay() & 0xFFFFFFFFL);
+    }
+
+    // Booked slots of one doctor-day and when they were read from the database;
+    // local changes keep the original load time, so the day is still re-read
+    private static final class Day {
+        private final long booked;
+        private final long loadedAt;
+
+        private Day(long booked) {
+            this(booked, System.currentTimeMillis());
+        }
+
+        private Day(long booked, long loadedAt) {
+            this.booked = booked;
+            this.loadedAt = loadedAt;
+        }
+
+        private Day with(long newBooked) {
+            return new Day(newBooked, loadedAt);
+        }
+
+        private boolean isFresh() {
+            return System.currentTimeMillis() - loadedAt < DAY_TTL_MILLIS;
+        }
+    }
+}
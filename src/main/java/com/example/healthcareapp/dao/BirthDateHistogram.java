@@ -0,0 +1,187 @@
+package com.example.healthcareapp.dao;
+
+import com.example.healthcareapp.model.AgeGenderHistogram;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Patient counts per date of birth and gender, held in memory so age
+// statistics need no TIMESTAMPDIFF over every patient row. Loaded with one
+// GROUP BY date_of_birth, gender (an index range scan with an index on those
+// columns); age bands become date-of-birth cutoffs, counted with binary
+// searches over cumulative counts. Patients without a date of birth are left
+// out of the age figures but still counted in the total and per gender, as
+// stored. New patients are added in place; updates and deletes, and anything
+// older than RELOAD_AFTER_MILLIS, trigger a reload.
+public class BirthDateHistogram {
+
+    // Picks up patients written by other clients
+    private static final long RELOAD_AFTER_MILLIS = 5 * 60 * 1000;
+    private static final int GENDERS = AgeGenderHistogram.GENDERS;
+
+    private static BirthDateHistogram instance;
+
+    // Distinct birth dates as epoch days, ascending
+    private long[] days = new long[0];
+    // Patients born up to and including days[i], per gender, at [(i + 1) * GENDERS + gender]
+    private int[] cumulative = new int[GENDERS];
+    // Every patient, with or without a date of birth
+    private int total = 0;
+    // Gender strings as stored, for every patient
+    private Map<String, Integer> genderCounts = new HashMap<>();
+    private boolean loaded = false;
+    private long loadedAt;
+
+    private BirthDateHistogram() {}
+
+    public static synchronized BirthDateHistogram getInstance() {
+        if (instance == null) {
+            instance = new BirthDateHistogram();
+        }
+        return instance;
+    }
+
+    // Patients grouped into age bands as of today
+    public synchronized AgeGenderHistogram toAgeHistogram(int bandWidth, LocalDate today) throws SQLException {
+        ensureLoaded();
+        AgeGenderHistogram histogram = new AgeGenderHistogram(bandWidth);
+        int last = histogram.getBandCount() - 1;
+
+        for (int band = 0; band <= last; band++) {
+            // Age >= start means born on or before today minus start years; age
+            // < next band's start means born after today minus that many years.
+            // The first band also takes future dates, the last has no lower bound.
+            int start = histogram.getBandStart(band);
+            int endIndex = band == 0 ? days.length : countUpTo(today.minusYears(start).toEpochDay());
+            int startIndex = band == last ? 0 : countUpTo(today.minusYears(histogram.getBandStart(band + 1)).toEpochDay());
+
+            for (int gender = 0; gender < GENDERS; gender++) {
+                histogram.add(band, gender, cumulative[endIndex * GENDERS + gender] - cumulative[startIndex * GENDERS + gender]);
+            }
+        }
+        return histogram;
+    }
+
+    public synchronized int getTotal() throws SQLException {
+        ensureLoaded();
+        return total;
+    }
+
+    public synchronized Map<String, Integer> getGenderCounts() throws SQLException {
+        ensureLoaded();
+        return new HashMap<>(genderCounts);
+    }
+
+    // Average age in whole years of patients with a date of birth, one age
+    // calculation per distinct birth date
+    public synchronized double getAverageAge(LocalDate today) throws SQLException {
+        ensureLoaded();
+        long ageSum = 0;
+        long total = 0;
+        for (int i = 0; i < days.length; i++) {
+            int count = 0;
+            for (int gender = 0; gender < GENDERS; gender++) {
+                count += cumulative[(i + 1) * GENDERS + gender] - cumulative[i * GENDERS + gender];
+            }
+            LocalDate birth = LocalDate.ofEpochDay(days[i]);
+            int age = today.getYear() - birth.getYear();
+            if (birth.plusYears(age).isAfter(today)) {
+                age--;
+            }
+            ageSum += (long) age * count;
+            total += count;
+        }
+        return total > 0 ? (double) ageSum / total : 0;
+    }
+
+    // Called by PatientDAO after inserting a patient
+    synchronized void recordAdded(LocalDate dateOfBirth, String gender) {
+        if (!loaded) {
+            return;
+        }
+        total++;
+        genderCounts.merge(gender, 1, Integer::sum);
+        if (dateOfBirth == null) {
+            return;
+        }
+        int index = Arrays.binarySearch(days, dateOfBirth.toEpochDay());
+        if (index < 0) {
+            // A birth date not seen before shifts every later entry; reload instead
+            loaded = false;
+            return;
+        }
+        int genderIndex = AgeGenderHistogram.genderIndex(gender);
+        for (int i = index + 1; i <= days.length; i++) {
+            cumulative[i * GENDERS + genderIndex]++;
+        }
+    }
+
+    // Called by PatientDAO after a patient is updated or deleted
+    synchronized void invalidate() {
+        loaded = false;
+    }
+
+    // Number of distinct birth dates on or before the epoch day
+    private int countUpTo(long epochDay) {
+        int index = Arrays.binarySearch(days, epochDay);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private void ensureLoaded() throws SQLException {
+        if (loaded && System.currentTimeMillis() - loadedAt < RELOAD_AFTER_MILLIS) {
+            return;
+        }
+
+        String sql = "SELECT date_of_birth, gender, COUNT(*) as count FROM patients " +
+                "GROUP BY date_of_birth, gender " +
+                "ORDER BY date_of_birth";
+
+        List<long[]> rows = new ArrayList<>();
+        int newTotal = 0;
+        Map<String, Integer> newGenderCounts = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                java.sql.Date birth = rs.getDate(1);
+                String gender = rs.getString(2);
+                int count = rs.getInt(3);
+                newTotal += count;
+                newGenderCounts.merge(gender, count, Integer::sum);
+                if (birth != null) {
+                    rows.add(new long[]{birth.toLocalDate().toEpochDay(),
+                            AgeGenderHistogram.genderIndex(gender), count});
+                }
+            }
+        }
+
+        // Rows come sorted by date; fold genders of the same date into one entry
+        long[] newDays = new long[rows.size()];
+        int[] newCumulative = new int[(rows.size() + 1) * GENDERS];
+        int distinct = 0;
+        for (long[] row : rows) {
+            if (distinct == 0 || newDays[distinct - 1] != row[0]) {
+                newDays[distinct] = row[0];
+                System.arraycopy(newCumulative, distinct * GENDERS, newCumulative, (distinct + 1) * GENDERS, GENDERS);
+                distinct++;
+            }
+            newCumulative[distinct * GENDERS + (int) row[1]] += (int) row[2];
+        }
+
+        days = Arrays.copyOf(newDays, distinct);
+        cumulative = Arrays.copyOf(newCumulative, (distinct + 1) * GENDERS);
+        total = newTotal;
+        genderCounts = newGenderCounts;
+        loaded = true;
+        loadedAt = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.healthcareapp.dao;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Column label -> position lookup, built once from a result set's metadata so
+// row mappers read each cell by index instead of by label
+final class ColumnIndex {
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    ColumnIndex(ResultSetMetaData metaData) throws SQLException {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            // First occurrence wins, matching how getXxx(label) resolves duplicates
+            positions.putIfAbsent(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+    }
+
+    int require(String label) throws SQLException {
+        Integer position = positions.get(label.toLowerCase(Locale.ROOT));
+        if (position == null) {
+            throw new SQLException("Column '" + label + "' not found in result set");
+        }
+        return position;
+    }
+
+    // Position of a column that a projection may leave out, or 0 if absent
+    int optional(String label) {
+        return positions.getOrDefault(label.toLowerCase(Locale.ROOT), 0);
+    }
+}
@@ -0,0 +1,368 @@
+package com.example.healthcareapp.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded JDBC connection pool. Callers borrow a connection and give it back by
+// calling close() on it, so existing try-with-resources code works unchanged.
+public class ConnectionPool implements AutoCloseable {
+
+    // Opens a physical connection; lets tests plug in an in-process database
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final int WAIT_SAMPLE_SIZE = 1024;
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+
+    private final Deque<PooledEntry> idle = new ArrayDeque<>();
+    private final Set<PooledEntry> borrowed = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+
+    // Statistics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private final long[] waitSamplesNanos = new long[WAIT_SAMPLE_SIZE];
+    private int waitSampleIndex = 0;
+    private int waitSampleCount = 0;
+
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, long leakThresholdMillis) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, leakThresholdMillis) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    // Borrow a connection, waiting up to borrowTimeoutMillis for one to become free
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timed out after " + borrowTimeoutMillis +
+                        " ms waiting for a database connection (active=" + borrowed.size() +
+                        ", max=" + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - waitStart);
+
+        try {
+            PooledEntry entry = takeValidIdleEntry();
+            if (entry == null) {
+                entry = new PooledEntry(factory.create());
+                totalConnections.incrementAndGet();
+            }
+            entry.borrowedAt = System.currentTimeMillis();
+            entry.borrowStack = new Throwable("Connection borrowed by " + Thread.currentThread().getName());
+            entry.leakReported = false;
+            borrowed.add(entry);
+            borrowCount.incrementAndGet();
+            return entry.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Validation on borrow: stale or broken connections are dropped and replaced
+    private PooledEntry takeValidIdleEntry() {
+        while (true) {
+            PooledEntry entry;
+            synchronized (idle) {
+                entry = idle.pollFirst();
+            }
+            if (entry == null) {
+                return null;
+            }
+            if (isUsable(entry.physical)) {
+                return entry;
+            }
+            discard(entry);
+        }
+    }
+
+    private boolean isUsable(Connection connection) {
+        try {
+            return !connection.isClosed() && connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledEntry entry) {
+        borrowed.remove(entry);
+        entry.borrowStack = null;
+        entry.statements.releaseAll();
+
+        boolean reusable = !closed;
+        if (reusable) {
+            try {
+                Connection connection = entry.physical;
+                if (connection.isClosed()) {
+                    reusable = false;
+                } else {
+                    // Leave no half-finished transaction behind for the next borrower
+                    if (!connection.getAutoCommit()) {
+                        connection.rollback();
+                        connection.setAutoCommit(true);
+                    }
+                    connection.clearWarnings();
+                }
+            } catch (SQLException e) {
+                reusable = false;
+            }
+        }
+
+        if (reusable) {
+            entry.lastUsed = System.currentTimeMillis();
+            synchronized (idle) {
+                // Most recently used first, so the tail holds the longest-idle connections
+                idle.addFirst(entry);
+            }
+        } else {
+            discard(entry);
+        }
+        permits.release();
+    }
+
+    private void discard(PooledEntry entry) {
+        totalConnections.decrementAndGet();
+        DatabaseConnection.closeConnection(entry.physical);
+    }
+
+    private void housekeep() {
+        try {
+            evictIdle();
+            detectLeaks();
+            fillToMinimum();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        synchronized (idle) {
+            Iterator<PooledEntry> iterator = idle.descendingIterator();
+            while (iterator.hasNext() && totalConnections.get() > minSize) {
+                PooledEntry entry = iterator.next();
+                if (now - entry.lastUsed < idleTimeoutMillis) {
+                    break;
+                }
+                iterator.remove();
+                evictedCount.incrementAndGet();
+                discard(entry);
+            }
+        }
+    }
+
+    private void detectLeaks() {
+        long now = System.currentTimeMillis();
+        for (PooledEntry entry : borrowed) {
+            Throwable stack = entry.borrowStack;
+            if (!entry.leakReported && stack != null && now - entry.borrowedAt > leakThresholdMillis) {
+                entry.leakReported = true;
+                leakCount.incrementAndGet();
+                System.err.println("Possible connection leak: connection held for " +
+                        (now - entry.borrowedAt) + " ms");
+                stack.printStackTrace();
+            }
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!closed && totalConnections.get() < minSize && permits.tryAcquire()) {
+            try {
+                PooledEntry entry = new PooledEntry(factory.create());
+                totalConnections.incrementAndGet();
+                entry.lastUsed = System.currentTimeMillis();
+                synchronized (idle) {
+                    idle.addLast(entry);
+                }
+            } catch (SQLException e) {
+                System.err.println("Could not pre-open pooled connection: " + e.getMessage());
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        synchronized (waitSamplesNanos) {
+            waitSamplesNanos[waitSampleIndex] = nanos;
+            waitSampleIndex = (waitSampleIndex + 1) % WAIT_SAMPLE_SIZE;
+            if (waitSampleCount < WAIT_SAMPLE_SIZE) {
+                waitSampleCount++;
+            }
+        }
+    }
+
+    public PoolStats getStats() {
+        long[] samples;
+        synchronized (waitSamplesNanos) {
+            samples = Arrays.copyOf(waitSamplesNanos, waitSampleCount);
+        }
+        Arrays.sort(samples);
+
+        int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+
+        return new PoolStats(borrowed.size(), idleCount, totalConnections.get(), maxSize,
+                permits.getQueueLength(), borrowCount.get(), timeoutCount.get(),
+                leakCount.get(), evictedCount.get(),
+                statementCacheHits.get(), statementCacheMisses.get(),
+                percentileMillis(samples, 0.50), percentileMillis(samples, 0.95),
+                percentileMillis(samples, 0.99),
+                samples.length > 0 ? samples[samples.length - 1] / 1_000_000.0 : 0);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        synchronized (idle) {
+            for (PooledEntry entry : idle) {
+                discard(entry);
+            }
+            idle.clear();
+        }
+    }
+
+    // A physical connection plus the bookkeeping the pool needs for it
+    private final class PooledEntry {
+        private final Connection physical;
+        private final StatementCache statements;
+        private volatile long borrowedAt;
+        private volatile long lastUsed;
+        private volatile Throwable borrowStack;
+        private volatile boolean leakReported;
+
+        private PooledEntry(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, STATEMENT_CACHE_SIZE,
+                    statementCacheHits, statementCacheMisses);
+            this.lastUsed = System.currentTimeMillis();
+        }
+
+        private Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    // The connection object handed to callers; close() returns it to the pool
+    private final class Handle implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean released = false;
+
+        private Handle(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.physical + "]";
+                default:
+                    if (released) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    if (method.getName().equals("prepareStatement")) {
+                        Class<?>[] types = method.getParameterTypes();
+                        if (types.length == 1) {
+                            return entry.statements.prepare((Connection) proxy, (String) args[0],
+                                    StatementCache.NO_GENERATED_KEYS);
+                        }
+                        if (types.length == 2 && types[1] == int.class) {
+                            return entry.statements.prepare((Connection) proxy, (String) args[0], (Integer) args[1]);
+                        }
+                    }
+                    try {
+                        return method.invoke(entry.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.healthcareapp.dao;
+
+import com.example.healthcareapp.model.AnalyticsReport;
+import com.example.healthcareapp.model.CohortRetention;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+// Writes reports and raw tables to CSV files. Rows are streamed from a
+// forward-only cursor straight into a buffered file channel, one row at a
+// time, so memory use does not grow with the table. Files whose name ends in
+// .gz are gzipped. Progress is reported every PROGRESS_INTERVAL rows, and the
+// cancelled check is polled as often; a cancelled export removes its file.
+public class CsvExporter {
+
+    public enum Dataset {
+        APPOINTMENTS("Appointments",
+                "SELECT a.appointment_id, a.appointment_date, a.appointment_time, a.status, " +
+                "a.patient_id, p.first_name as patient_first_name, p.last_name as patient_last_name, " +
+                "a.doctor_id, d.full_name as doctor_name, a.reason, a.notes, a.created_date " +
+                "FROM appointments a " +
+                "JOIN patients p ON a.patient_id = p.patient_id " +
+                "JOIN users d ON a.doctor_id = d.user_id " +
+                "WHERE a.appointment_date BETWEEN ? AND ? " +
+                "ORDER BY a.appointment_date, a.appointment_time, a.appointment_id",
+                "SELECT COUNT(*) FROM appointments WHERE appointment_date BETWEEN ? AND ?"),
+        // Medical history is left out of bulk exports
+        PATIENTS("Patients",
+                "SELECT patient_id, first_name, last_name, date_of_birth, gender, phone, email, address " +
+                "FROM patients ORDER BY patient_id",
+                "SELECT COUNT(*) FROM patients");
+
+        private final String label;
+        private final String sql;
+        private final String countSql;
+
+        Dataset(String label, String sql, String countSql) {
+            this.label = label;
+            this.sql = sql;
+            this.countSql = countSql;
+        }
+
+        // Appointments are limited to a date range; patients are exported in full
+        public boolean isDateRanged() {
+            return this == APPOINTMENTS;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Progress {
+        // totalRows is -1 when unknown
+        void update(long rows, long totalRows);
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 5_000;
+    // Plain numbers are left alone even when negative; they cannot be formulas
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?%?");
+
+    private final BooleanSupplier cancelled;
+    private final Progress progress;
+
+    public CsvExporter(BooleanSupplier cancelled, Progress progress) {
+        this.cancelled = cancelled;
+        this.progress = progress;
+    }
+
+    public static boolean isCompressed(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".gz");
+    }
+
+    // Every row of the dataset, with a header row of column labels
+    public ExportStats exportDataset(Dataset dataset, LocalDate startDate, LocalDate endDate, Path file)
+            throws SQLException, IOException {
+        long started = System.nanoTime();
+        long totalRows = countRows(dataset, startDate, endDate);
+        long rows = 0;
+        boolean completed = false;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(dataset.sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // Stream rows from the server instead of buffering the whole result
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            if (dataset.isDateRanged()) {
+                pstmt.setDate(1, java.sql.Date.valueOf(startDate));
+                pstmt.setDate(2, java.sql.Date.valueOf(endDate));
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                try (Writer out = openWriter(file)) {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    int columns = meta.getColumnCount();
+                    for (int i = 1; i <= columns; i++) {
+                        writeField(out, meta.getColumnLabel(i), i == columns);
+                    }
+
+                    progress.update(0, totalRows);
+                    while (rs.next()) {
+                        for (int i = 1; i <= columns; i++) {
+                            writeField(out, rs.getString(i), i == columns);
+                        }
+                        rows++;
+                        if (rows % PROGRESS_INTERVAL == 0) {
+                            if (cancelled.getAsBoolean()) {
+                                throw new CancellationException("Export cancelled after " + rows + " rows");
+                            }
+                            progress.update(rows, totalRows);
+                        }
+                    }
+                    progress.update(rows, Math.max(rows, totalRows));
+                } catch (IOException | RuntimeException e) {
+                    // Closing a streaming result set early reads the rest of it
+                    // first; stop the query on the server instead
+                    pstmt.cancel();
+                    throw e;
+                }
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        return new ExportStats(dataset.toString(), rows, Files.size(file), System.nanoTime() - started,
+                isCompressed(file));
+    }
+
+    // The report's metrics and distributions as metric/value rows, followed
+    // by the cohort grid when retention is not null
+    public ExportStats exportReport(AnalyticsReport report, CohortRetention retention, Path file) throws IOException {
+        long started = System.nanoTime();
+        long rows = 0;
+        boolean completed = false;
+
+        try (Writer out = openWriter(file)) {
+            writeRow(out, "Metric", "Value");
+            writeRow(out, "Report Type", report.getReportType());
+            writeRow(out, "Start Date", String.valueOf(report.getStartDate()));
+            writeRow(out, "End Date", String.valueOf(report.getEndDate()));
+            writeRow(out, "Total Patients", String.valueOf(report.getTotalPatients()));
+            writeRow(out, "Average Age", String.format(Locale.ROOT, "%.1f", report.getAvgPatientAge()));
+            writeRow(out, "Total Appointments", String.valueOf(report.getTotalAppointments()));
+            writeRow(out, "Completed Appointments", String.valueOf(report.getCompletedAppointments()));
+            writeRow(out, "Completion Rate", String.format(Locale.ROOT, "%.1f%%", report.getCompletionRate()));
+            writeRow(out, "Unique Patients", String.valueOf(report.getUniquePatients()));
+            rows += 10;
+
+            for (Map.Entry<String, Integer> entry : report.getGenderDistribution().entrySet()) {
+                writeRow(out, "Gender: " + entry.getKey(), String.valueOf(entry.getValue()));
+                rows++;
+            }
+            for (Map.Entry<String, Integer> entry : report.getStatusDistribution().entrySet()) {
+                writeRow(out, "Status: " + entry.getKey(), String.valueOf(entry.getValue()));
+                rows++;
+            }
+            for (String section : report.getMissingSections()) {
+                writeRow(out, "Missing Section", section);
+                rows++;
+            }
+
+            if (retention != null) {
+                rows += writeRetention(out, retention);
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        return new ExportStats("Report", rows, Files.size(file), System.nanoTime() - started, isCompressed(file));
+    }
+
+    // One row per cohort: its month, size and return rate for each later month
+    private long writeRetention(Writer out, CohortRetention retention) throws IOException {
+        int months = retention.getMonthCount();
+        out.write("\r\n");
+        writeField(out, "Cohort", false);
+        writeField(out, "Patients", months <= 1);
+        for (int offset = 1; offset < months; offset++) {
+            writeField(out, "Month " + offset, offset == months - 1);
+        }
+
+        long rows = 0;
+        for (int cohort = 0; cohort < months; cohort++) {
+            writeField(out, retention.getCohortLabel(cohort), false);
+            writeField(out, String.valueOf(retention.getCohortSize(cohort)), months <= 1);
+            for (int offset = 1; offset < months; offset++) {
+                // Months not yet reached by the cohort are left empty
+                String rate = offset < retention.getOffsetCount(cohort)
+                        ? String.format(Locale.ROOT, "%.1f%%", retention.getRate(cohort, offset)) : null;
+                writeField(out, rate, offset == months - 1);
+            }
+            rows++;
+        }
+        return rows;
+    }
+
+    private long countRows(Dataset dataset, LocalDate startDate, LocalDate endDate) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(dataset.countSql)) {
+
+            if (dataset.isDateRanged()) {
+                pstmt.setDate(1, java.sql.Date.valueOf(startDate));
+                pstmt.setDate(2, java.sql.Date.valueOf(endDate));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : -1;
+            }
+        } catch (SQLException e) {
+            // Only used for progress; export without a total
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    private static Writer openWriter(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+        if (isCompressed(file)) {
+            stream = new GZIPOutputStream(stream, BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private static void writeRow(Writer out, String first, String second) throws IOException {
+        writeField(out, first, false);
+        writeField(out, second, true);
+    }
+
+    // RFC 4180 field: quoted only when it holds a comma, quote or line break;
+    // null is written as an empty field. Text a spreadsheet would run as a
+    // formula (starting with =, +, -, @, tab or CR) is prefixed with a quote.
+    private static void writeField(Writer out, String value, boolean last) throws IOException {
+        if (value != null && isFormula(value)) {
+            value = "'" + value;
+        }
+        if (value != null) {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (quote) {
+                out.write('"');
+                for (int i = 0; i < value.length(); i++) {
+                    char c = value.charAt(i);
+                    if (c == '"') {
+                        out.write('"');
+                    }
+                    out.write(c);
+                }
+                out.write('"');
+            } else {
+                out.write(value);
+            }
+        }
+        out.write(last ? "\r\n" : ",");
+    }
+
+    private static boolean isFormula(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        char c = value.charAt(0);
+        return (c == '=' || c == '+' || c == '-' || c == '@' || c == '\t' || c == '\r')
+                && !NUMBER.matcher(value).matches();
+    }
+}
@@ -0,0 +1,540 @@
+package com.example.healthcareapp.dao;
+
+import com.example.healthcareapp.model.Appointment;
+import com.example.healthcareapp.util.DistinctIdSet;
+import com.example.healthcareapp.util.HyperLogLog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+// Per-day appointment counts by doctor and status, plus the distinct patients
+// per day, doctor and status, so range reports sum a few rows per day
+// instead of scanning appointments. Patient rows are DistinctIdSets: exact id
+// lists of a few hundred bytes, promoted to a sketch only on very busy days.
+// The tables come from MIGRATION_SCRIPT and are backfilled by RollupTool;
+// until then reports use the raw table.
+//
+// AppointmentDAO applies each write's delta after the write commits, in its
+// own transaction, so a rollup failure never fails a booking. Deadlocks and
+// lock timeouts are retried; a delta that still fails marks its date dirty,
+// and rebuild() repairs it. check() verifies a date range against the raw table.
+// A crash between a write's commit and its delta leaves the rollups stale with
+// no dirty mark; run "RollupTool check" over recent dates after one.
+//
+// Patient sets only grow: a patient stays counted under a status their
+// appointment has left, or that was deleted, until the range is rebuilt.
+public class DailyRollupStore {
+
+    public static final String MIGRATION_SCRIPT = "/db/daily_rollups.sql";
+
+    // Promoted patient sets are built at this precision; queries may fold them lower
+    public static final int SKETCH_PRECISION = HyperLogLog.DEFAULT_PRECISION;
+
+    // Past this many ids, a range's merged patients are counted with a sketch
+    // instead of an exact id list
+    private static final int MAX_EXACT_IDS = 1 << 20;
+
+    private static final String ADD_COUNT = "INSERT INTO appointment_daily_rollup " +
+            "(rollup_date, doctor_id, status, appointment_count) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE appointment_count = appointment_count + VALUES(appointment_count)";
+
+    // Stand-ins for an open end of a date range, the limits of a MySQL DATE
+    private static final LocalDate FIRST_DATE = LocalDate.of(1000, 1, 1);
+    private static final LocalDate LAST_DATE = LocalDate.of(9999, 12, 31);
+
+    private static final int PATIENT_BATCH_SIZE = 200;
+    private static final int MAX_ATTEMPTS = 3;
+    // Missing or not yet backfilled tables are looked for again after this
+    private static final long RECHECK_MILLIS = 5 * 60 * 1000;
+
+    // One write's change to the rollups, applied in its own transaction
+    @FunctionalInterface
+    private interface Delta {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private static DailyRollupStore instance;
+
+    private volatile boolean ready = false;
+    private volatile long checkedAt = 0;
+
+    private DailyRollupStore() {}
+
+    public static synchronized DailyRollupStore getInstance() {
+        if (instance == null) {
+            instance = new DailyRollupStore();
+        }
+        return instance;
+    }
+
+    // True once the tables exist and have been backfilled; otherwise callers
+    // fall back to the appointments table. A single cheap query, repeated at
+    // most every RECHECK_MILLIS while the answer is no.
+    public boolean isAvailable() {
+        if (!ready && System.currentTimeMillis() - checkedAt >= RECHECK_MILLIS) {
+            synchronized (this) {
+                if (!ready && System.currentTimeMillis() - checkedAt >= RECHECK_MILLIS) {
+                    try {
+                        ready = !needsBackfill();
+                    } catch (SQLException e) {
+                        // Not migrated yet
+                        ready = false;
+                    }
+                    checkedAt = System.currentTimeMillis();
+                }
+            }
+        }
+        return ready;
+    }
+
+    // True from migrate() until the first full rebuild()
+    public boolean needsBackfill() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM appointment_rollup_dirty WHERE rollup_date = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setDate(1, java.sql.Date.valueOf(FIRST_DATE));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    // Create the tables from MIGRATION_SCRIPT; they still need a rebuild()
+    public void migrate() throws SQLException {
+        String script;
+        try (InputStream in = DailyRollupStore.class.getResourceAsStream(MIGRATION_SCRIPT)) {
+            if (in == null) {
+                throw new SQLException("Missing migration script " + MIGRATION_SCRIPT);
+            }
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Cannot read " + MIGRATION_SCRIPT, e);
+        }
+
+        StringBuilder statement = new StringBuilder();
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            for (String line : script.split("\\R")) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                    continue;
+                }
+                statement.append(line).append('\n');
+                if (trimmed.endsWith(";")) {
+                    stmt.execute(statement.substring(0, statement.lastIndexOf(";")));
+                    statement.setLength(0);
+                }
+            }
+        }
+        checkedAt = 0;
+    }
+
+    // Called by AppointmentDAO after a new appointment is committed
+    void recordCreated(Appointment appointment, String status) {
+        applyDelta(appointment.getAppointmentDate(), conn -> {
+            addCount(conn, appointment.getAppointmentDate(), appointment.getDoctorId(), status, 1);
+            addPatient(conn, appointment.getAppointmentDate(), appointment.getDoctorId(), status, appointment.getPatientId());
+        });
+    }
+
+    // Called by AppointmentDAO after a status update is committed; slot holds
+    // the appointment as it was before the update
+    void recordStatusChange(Appointment slot, String newStatus) {
+        if (Objects.equals(slot.getStatus(), newStatus)) {
+            return;
+        }
+        applyDelta(slot.getAppointmentDate(), conn -> {
+            addCount(conn, slot.getAppointmentDate(), slot.getDoctorId(), slot.getStatus(), -1);
+            addCount(conn, slot.getAppointmentDate(), slot.getDoctorId(), newStatus, 1);
+            addPatient(conn, slot.getAppointmentDate(), slot.getDoctorId(), newStatus, slot.getPatientId());
+        });
+    }
+
+    // Called by AppointmentDAO after a delete is committed
+    void recordDeleted(Appointment slot) {
+        applyDelta(slot.getAppointmentDate(), conn ->
+                addCount(conn, slot.getAppointmentDate(), slot.getDoctorId(), slot.getStatus(), -1));
+    }
+
+    // Until this process sees the backfill, the date is only marked dirty: a
+    // rebuild run elsewhere may already have read the raw table without this
+    // write, and the dirty mark lets repair recompute the day from it
+    private void applyDelta(LocalDate date, Delta delta) {
+        if (!isAvailable()) {
+            try {
+                insertDirty(date);
+            } catch (SQLException e) {
+                // Not migrated yet; the first backfill will read the write
+            }
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                delta.apply(conn);
+                conn.commit();
+                return;
+            } catch (SQLException e) {
+                if (attempt < MAX_ATTEMPTS && isRetryable(e)) {
+                    continue;
+                }
+                e.printStackTrace();
+                markDirty(date);
+                return;
+            }
+        }
+    }
+
+    // MySQL deadlock or lock wait timeout
+    private static boolean isRetryable(SQLException e) {
+        return e.getErrorCode() == 1213 || e.getErrorCode() == 1205 || "40001".equals(e.getSQLState());
+    }
+
+    private void markDirty(LocalDate date) {
+        try {
+            insertDirty(date);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            System.err.println("Rollups for " + date + " are out of date; run RollupTool check");
+        }
+    }
+
+    private void insertDirty(LocalDate date) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "INSERT IGNORE INTO appointment_rollup_dirty (rollup_date) VALUES (?)")) {
+            pstmt.setDate(1, java.sql.Date.valueOf(date));
+            pstmt.executeUpdate();
+        }
+    }
+
+    // Dates marked dirty since their last rebuild, in order
+    public List<LocalDate> getDirtyDates() throws SQLException {
+        List<LocalDate> dates = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "SELECT rollup_date FROM appointment_rollup_dirty WHERE rollup_date > ? ORDER BY rollup_date")) {
+            pstmt.setDate(1, java.sql.Date.valueOf(FIRST_DATE));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    dates.add(rs.getDate(1).toLocalDate());
+                }
+            }
+        }
+        return dates;
+    }
+
+    private void addCount(Connection conn, LocalDate date, int doctorId, String status, int delta) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(ADD_COUNT)) {
+            pstmt.setDate(1, java.sql.Date.valueOf(date));
+            pstmt.setInt(2, doctorId);
+            pstmt.setString(3, status);
+            pstmt.setInt(4, delta);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private void addPatient(Connection conn, LocalDate date, int doctorId, String status, int patientId) throws SQLException {
+        String select = "SELECT patient_ids FROM appointment_daily_patient_sets " +
+                "WHERE rollup_date = ? AND doctor_id = ? AND status = ? FOR UPDATE";
+
+        DistinctIdSet patients;
+        try (PreparedStatement pstmt = conn.prepareStatement(select)) {
+            pstmt.setDate(1, java.sql.Date.valueOf(date));
+            pstmt.setInt(2, doctorId);
+            pstmt.setString(3, status);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                patients = DistinctIdSet.fromBytes(rs.next() ? rs.getBytes(1) : null, SKETCH_PRECISION);
+            }
+        }
+
+        // Repeat patients leave the set unchanged, so skip the write
+        if (patients.add(patientId)) {
+            try (PreparedStatement pstmt = conn.prepareStatement(upsertPatientsSql())) {
+                setPatients(pstmt, date, doctorId, status, patients);
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    private static String upsertPatientsSql() {
+        return "INSERT INTO appointment_daily_patient_sets (rollup_date, doctor_id, status, patient_ids) " +
+                "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE patient_ids = VALUES(patient_ids)";
+    }
+
+    private static void setPatients(PreparedStatement pstmt, LocalDate date, int doctorId, String status,
+                                     DistinctIdSet patients) throws SQLException {
+        pstmt.setDate(1, java.sql.Date.valueOf(date));
+        pstmt.setInt(2, doctorId);
+        pstmt.setString(3, status);
+        pstmt.setBytes(4, patients.toBytes());
+    }
+
+    // Appointment counts by status over the range, summed from the daily rows
+    public Map<String, Integer> getStatusCounts(LocalDate startDate, LocalDate endDate) throws SQLException {
+        String sql = "SELECT status, SUM(appointment_count) as count " +
+                "FROM appointment_daily_rollup " +
+                "WHERE rollup_date BETWEEN ? AND ? " +
+                "GROUP BY status";
+        Map<String, Integer> counts = new TreeMap<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setDate(1, java.sql.Date.valueOf(startDate));
+            pstmt.setDate(2, java.sql.Date.valueOf(endDate));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int count = rs.getInt("count");
+                    // Statuses whose appointments have all moved on leave zero rows behind
+                    if (count != 0) {
+                        counts.put(rs.getString("status"), count);
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    // Distinct patients over the range, merged from the daily sets. Exact
+    // while every row is exact and the merged ids stay under MAX_EXACT_IDS;
+    // otherwise a sketch at the given precision (at most SKETCH_PRECISION).
+    // Doctor and status narrow it down when not null.
+    public long estimateUniquePatients(LocalDate startDate, LocalDate endDate, Integer doctorId,
+                                       String status, int precision) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT patient_ids FROM appointment_daily_patient_sets " +
+                "WHERE rollup_date BETWEEN ? AND ? ");
+        if (doctorId != null) {
+            sql.append("AND doctor_id = ? ");
+        }
+        if (status != null) {
+            sql.append("AND status = ? ");
+        }
+        // Ids from exact rows, repeats included; null once merged into a sketch
+        int[] ids = new int[1024];
+        int count = 0;
+        HyperLogLog merged = null;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+
+            int index = 1;
+            pstmt.setDate(index++, java.sql.Date.valueOf(startDate));
+            pstmt.setDate(index++, java.sql.Date.valueOf(endDate));
+            if (doctorId != null) {
+                pstmt.setInt(index++, doctorId);
+            }
+            if (status != null) {
+                pstmt.setString(index++, status);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    DistinctIdSet day = DistinctIdSet.fromBytes(rs.getBytes(1), SKETCH_PRECISION);
+                    if (day.isExact() && merged == null) {
+                        int[] dayIds = day.getIds();
+                        if (count + dayIds.length <= MAX_EXACT_IDS) {
+                            if (count + dayIds.length > ids.length) {
+                                ids = Arrays.copyOf(ids, Math.max(ids.length * 2, count + dayIds.length));
+                            }
+                            System.arraycopy(dayIds, 0, ids, count, dayIds.length);
+                            count += dayIds.length;
+                            continue;
+                        }
+                    }
+                    if (merged == null) {
+                        merged = new HyperLogLog(Math.min(precision, SKETCH_PRECISION));
+                        for (int i = 0; i < count; i++) {
+                            merged.add(ids[i]);
+                        }
+                        ids = null;
+                    }
+                    if (day.isExact()) {
+                        for (int id : day.getIds()) {
+                            merged.add(id);
+                        }
+                    } else if (day.getSketch().getPrecision() >= merged.getPrecision()) {
+                        merged.merge(day.getSketch());
+                    } else {
+                        // Stored at a lower precision than asked for; count at that precision
+                        merged = merged.foldTo(day.getSketch().getPrecision());
+                        merged.merge(day.getSketch());
+                    }
+                }
+            }
+        }
+        if (merged != null) {
+            return merged.estimate();
+        }
+
+        Arrays.sort(ids, 0, count);
+        long distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                distinct++;
+            }
+        }
+        return distinct;
+    }
+
+    // Recompute the range from the appointments table and clear its dirty
+    // marks; null ends are open. Rebuilding everything completes the backfill.
+    public void rebuild(LocalDate startDate, LocalDate endDate) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            rebuild(conn, startDate, endDate);
+        }
+        checkedAt = 0;
+    }
+
+    private void rebuild(Connection conn, LocalDate startDate, LocalDate endDate) throws SQLException {
+        java.sql.Date start = java.sql.Date.valueOf(startDate != null ? startDate : FIRST_DATE);
+        java.sql.Date end = java.sql.Date.valueOf(endDate != null ? endDate : LAST_DATE);
+
+        conn.setAutoCommit(false);
+        try {
+            for (String table : new String[]{"appointment_daily_rollup", "appointment_daily_patient_sets",
+                    "appointment_rollup_dirty"}) {
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "DELETE FROM " + table + " WHERE rollup_date BETWEEN ? AND ?")) {
+                    pstmt.setDate(1, start);
+                    pstmt.setDate(2, end);
+                    pstmt.executeUpdate();
+                }
+            }
+
+            String counts = "INSERT INTO appointment_daily_rollup (rollup_date, doctor_id, status, appointment_count) " +
+                    "SELECT appointment_date, doctor_id, status, COUNT(*) FROM appointments " +
+                    "WHERE appointment_date BETWEEN ? AND ? " +
+                    "GROUP BY appointment_date, doctor_id, status";
+            try (PreparedStatement pstmt = conn.prepareStatement(counts)) {
+                pstmt.setDate(1, start);
+                pstmt.setDate(2, end);
+                pstmt.executeUpdate();
+            }
+
+            rebuildPatients(conn, start, end);
+            conn.commit();
+
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // Appointments arrive grouped by day, doctor and status, so only one set is open at a time
+    private void rebuildPatients(Connection conn, java.sql.Date start, java.sql.Date end) throws SQLException {
+        String select = "SELECT appointment_date, doctor_id, status, patient_id FROM appointments " +
+                "WHERE appointment_date BETWEEN ? AND ? " +
+                "ORDER BY appointment_date, doctor_id, status";
+
+        try (PreparedStatement query = conn.prepareStatement(select);
+             PreparedStatement insert = conn.prepareStatement(upsertPatientsSql())) {
+
+            query.setDate(1, start);
+            query.setDate(2, end);
+
+            LocalDate currentDate = null;
+            int currentDoctor = 0;
+            String currentStatus = null;
+            DistinctIdSet patients = null;
+            int batched = 0;
+
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    LocalDate date = rs.getDate(1).toLocalDate();
+                    int doctorId = rs.getInt(2);
+                    String status = rs.getString(3);
+
+                    if (patients == null || !date.equals(currentDate) || doctorId != currentDoctor
+                            || !status.equals(currentStatus)) {
+                        if (patients != null) {
+                            setPatients(insert, currentDate, currentDoctor, currentStatus, patients);
+                            insert.addBatch();
+                            if (++batched % PATIENT_BATCH_SIZE == 0) {
+                                insert.executeBatch();
+                            }
+                        }
+                        currentDate = date;
+                        currentDoctor = doctorId;
+                        currentStatus = status;
+                        patients = new DistinctIdSet(SKETCH_PRECISION);
+                    }
+                    patients.add(rs.getInt(4));
+                }
+            }
+
+            if (patients != null) {
+                setPatients(insert, currentDate, currentDoctor, currentStatus, patients);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    // Compare rollup counts with a fresh count of the appointments table and
+    // describe each day, doctor and status where they differ
+    public List<String> check(LocalDate startDate, LocalDate endDate) throws SQLException {
+        java.sql.Date start = java.sql.Date.valueOf(startDate != null ? startDate : FIRST_DATE);
+        java.sql.Date end = java.sql.Date.valueOf(endDate != null ? endDate : LAST_DATE);
+
+        String raw = "SELECT appointment_date, doctor_id, status, COUNT(*) FROM appointments " +
+                "WHERE appointment_date BETWEEN ? AND ? " +
+                "GROUP BY appointment_date, doctor_id, status";
+        String rolled = "SELECT rollup_date, doctor_id, status, appointment_count FROM appointment_daily_rollup " +
+                "WHERE rollup_date BETWEEN ? AND ?";
+
+        // Keyed by "date doctor status", sorted so mismatches read in date order
+        Map<String, int[]> counts = new TreeMap<>();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            readCounts(conn, raw, start, end, counts, 0);
+            readCounts(conn, rolled, start, end, counts, 1);
+        }
+
+        List<String> mismatches = new ArrayList<>();
+        if (needsBackfill()) {
+            mismatches.add("Rollups have not been backfilled yet");
+        }
+        for (LocalDate date : getDirtyDates()) {
+            if (!date.isBefore(start.toLocalDate()) && !date.isAfter(end.toLocalDate())) {
+                mismatches.add(date + ": marked dirty by a failed rollup write");
+            }
+        }
+        counts.forEach((key, pair) -> {
+            if (pair[0] != pair[1]) {
+                mismatches.add(key + ": appointments " + pair[0] + ", rollup " + pair[1]);
+            }
+        });
+        return mismatches;
+    }
+
+    private void readCounts(Connection conn, String sql, java.sql.Date start, java.sql.Date end,
+                            Map<String, int[]> counts, int slot) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setDate(1, start);
+            pstmt.setDate(2, end);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String key = rs.getDate(1) + " doctor " + rs.getInt(2) + " " + rs.getString(3);
+                    counts.computeIfAbsent(key, k -> new int[2])[slot] = rs.getInt(4);
+                }
+            }
+        }
+    }
+}
@@ -9,13 +9,63 @@ public class DatabaseConnection {
     private static final String USER = "root";
     private static final String PASSWORD = "root1234";
 
+    // Pool sizing
+    private static final int POOL_MIN_SIZE = 2;
+    private static final int POOL_MAX_SIZE = 10;
+    private static final long BORROW_TIMEOUT_MILLIS = 5_000;
+    private static final long IDLE_TIMEOUT_MILLIS = 5 * 60_000;
+    private static final long LEAK_THRESHOLD_MILLIS = 30_000;
+
+    private static volatile ConnectionPool pool;
+
+    // Returns a pooled connection; closing it hands it back to the pool
     public static Connection getConnection() throws SQLException {
+        return getPool().getConnection();
+    }
+
+    private static ConnectionPool getPool() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = pool;
+                if (current == null) {
+                    current = createDefaultPool();
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static ConnectionPool createDefaultPool() throws SQLException {
         try {
             Class.forName("com.mysql.cj.jdbc.Driver");
-            return DriverManager.getConnection(URL, USER, PASSWORD);
         } catch (ClassNotFoundException e) {
             throw new SQLException("MySQL JDBC Driver not found", e);
         }
+        return new ConnectionPool(() -> DriverManager.getConnection(URL, USER, PASSWORD),
+                POOL_MIN_SIZE, POOL_MAX_SIZE, BORROW_TIMEOUT_MILLIS, IDLE_TIMEOUT_MILLIS, LEAK_THRESHOLD_MILLIS);
+    }
+
+    // Replace the pool, e.g. with one backed by an embedded database for tests
+    public static synchronized void setPool(ConnectionPool newPool) {
+        ConnectionPool previous = pool;
+        pool = newPool;
+        if (previous != null && previous != newPool) {
+            previous.close();
+        }
+    }
+
+    public static PoolStats getPoolStats() {
+        ConnectionPool current = pool;
+        return current != null ? current.getStats() : null;
+    }
+
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
     }
 
     public static void closeConnection(Connection connection) {
@@ -28,4 +78,3 @@ public class DatabaseConnection {
         }
     }
 }
-
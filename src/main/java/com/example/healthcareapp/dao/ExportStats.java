@@ -0,0 +1,44 @@
+package com.example.healthcareapp.dao;
+
+// Outcome of one CSV export: how much was written and how fast
+public class ExportStats {
+    private final String source;
+    private final long rows;
+    private final long bytes;
+    private final long elapsedNanos;
+    private final boolean compressed;
+
+    public ExportStats(String source, long rows, long bytes, long elapsedNanos, boolean compressed) {
+        this.source = source;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+        this.compressed = compressed;
+    }
+
+    public String getSource() { return source; }
+    public long getRows() { return rows; }
+    // Bytes on disk, after compression when compressed
+    public long getBytes() { return bytes; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    public boolean isCompressed() { return compressed; }
+
+    public double getElapsedSeconds() {
+        return elapsedNanos / 1_000_000_000.0;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos > 0 ? rows / getElapsedSeconds() : 0;
+    }
+
+    public double getMegabytesPerSecond() {
+        return elapsedNanos > 0 ? bytes / (1024.0 * 1024.0) / getElapsedSeconds() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %,d rows, %.2f MB%s in %.2f s (%,.0f rows/s, %.2f MB/s)",
+                source, rows, bytes / (1024.0 * 1024.0), compressed ? " gzipped" : "",
+                getElapsedSeconds(), getRowsPerSecond(), getMegabytesPerSecond());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.healthcareapp.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Write-behind for users.last_login. Logins only record a timestamp in memory;
+// pending timestamps (one per user, latest wins) are written in one batched
+// UPDATE every few seconds, when the backlog fills up, on logout and at shutdown.
+public class LastLoginWriter {
+
+    private static final long FLUSH_INTERVAL_SECONDS = 5;
+    private static final int MAX_PENDING = 500;
+
+    private static LastLoginWriter instance;
+
+    private final Map<Integer, Timestamp> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    private LastLoginWriter() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "last-login-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public static synchronized LastLoginWriter getInstance() {
+        if (instance == null) {
+            instance = new LastLoginWriter();
+        }
+        return instance;
+    }
+
+    public void recordLogin(int userId) {
+        pending.put(userId, new Timestamp(System.currentTimeMillis()));
+        if (pending.size() >= MAX_PENDING) {
+            requestFlush();
+        }
+    }
+
+    // Flush soon on the writer thread, without blocking the caller
+    public void requestFlush() {
+        try {
+            flusher.execute(this::flush);
+        } catch (RejectedExecutionException e) {
+            // Already shut down; shutdown() flushed whatever was pending
+        }
+    }
+
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<Integer, Timestamp>> batch = new ArrayList<>(pending.size());
+        for (Map.Entry<Integer, Timestamp> entry : pending.entrySet()) {
+            // Only take the value we write; a newer login stays pending
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                batch.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        String sql = "UPDATE users SET last_login = ? WHERE user_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            for (Map.Entry<Integer, Timestamp> entry : batch) {
+                pstmt.setTimestamp(1, entry.getValue());
+                pstmt.setInt(2, entry.getKey());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+            // Put them back for the next flush unless a newer login replaced them
+            for (Map.Entry<Integer, Timestamp> entry : batch) {
+                pending.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    // Stop the timer and write what is still pending
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
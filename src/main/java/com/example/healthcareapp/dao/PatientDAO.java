@@ -3,15 +3,33 @@ import com.example.healthcareapp.model.Patient;
 import java.sql.*;
         import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class PatientDAO {
 
+    // Columns list views need; address and medical_history are loaded per patient on demand
+    private static final String SUMMARY_COLUMNS =
+            "patient_id, first_name, last_name, date_of_birth, gender, phone, email";
+    private static final int RECENT_RECORDS = 32;
+    // Cached records are read again after this, to pick up edits made from other clients
+    private static final long RECORD_TTL_MILLIS = 30_000;
+
+    // Recently opened full records, least recently used first
+    private static final Map<Integer, Record> recentRecords =
+            new LinkedHashMap<Integer, Record>(RECENT_RECORDS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Record> eldest) {
+                    return size() > RECENT_RECORDS;
+                }
+            };
+
     public boolean addPatient(Patient patient) {
         String sql = "INSERT INTO patients (first_name, last_name, date_of_birth, gender, phone, email, address, medical_history) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
 
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             pstmt.setString(1, patient.getFirstName());
             pstmt.setString(2, patient.getLastName());
@@ -22,7 +40,18 @@ public class PatientDAO {
             pstmt.setString(7, patient.getAddress());
             pstmt.setString(8, patient.getMedicalHistory());
 
-            return pstmt.executeUpdate() > 0;
+            if (pstmt.executeUpdate() == 0) {
+                return false;
+            }
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    patient.setPatientId(keys.getInt(1));
+                    PatientSearchIndex.getInstance().put(patient);
+                }
+            }
+            BirthDateHistogram.getInstance().recordAdded(patient.getDateOfBirth(), patient.getGender());
+            ReportCache.getInstance().invalidatePatientData();
+            return true;
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -38,18 +67,9 @@ public class PatientDAO {
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
+            PatientRowMapper mapper = new PatientRowMapper(rs);
             while (rs.next()) {
-                Patient patient = new Patient();
-                patient.setPatientId(rs.getInt("patient_id"));
-                patient.setFirstName(rs.getString("first_name"));
-                patient.setLastName(rs.getString("last_name"));
-                patient.setDateOfBirth(rs.getDate("date_of_birth").toLocalDate());
-                patient.setGender(rs.getString("gender"));
-                patient.setPhone(rs.getString("phone"));
-                patient.setEmail(rs.getString("email"));
-                patient.setAddress(rs.getString("address"));
-                patient.setMedicalHistory(rs.getString("medical_history"));
-                patients.add(patient);
+                patients.add(mapper.mapRow(rs));
             }
 
         } catch (SQLException e) {
@@ -59,6 +79,65 @@ public class PatientDAO {
         return patients;
     }
 
+    // Lightweight rows for tables and combo boxes, without the free-text fields
+    public List<Patient> getPatientSummaries() {
+        List<Patient> patients = new ArrayList<>();
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM patients ORDER BY last_name, first_name";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            PatientRowMapper mapper = new PatientRowMapper(rs);
+            while (rs.next()) {
+                patients.add(mapper.mapRow(rs));
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return patients;
+    }
+
+    // Full record including address and medical history
+    public Patient getPatientById(int patientId) {
+        synchronized (recentRecords) {
+            Record cached = recentRecords.get(patientId);
+            if (cached != null && cached.isFresh()) {
+                return cached.patient;
+            }
+        }
+
+        String sql = "SELECT * FROM patients WHERE patient_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, patientId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    Patient patient = new PatientRowMapper(rs).mapRow(rs);
+                    synchronized (recentRecords) {
+                        recentRecords.put(patientId, new Record(patient));
+                    }
+                    return patient;
+                }
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    private static void forgetRecord(int patientId) {
+        synchronized (recentRecords) {
+            recentRecords.remove(patientId);
+        }
+    }
+
     public boolean updatePatient(Patient patient) {
         String sql = "UPDATE patients SET first_name=?, last_name=?, date_of_birth=?, gender=?, phone=?, email=?, address=?, medical_history=? WHERE patient_id=?";
 
@@ -75,7 +154,14 @@ public class PatientDAO {
             pstmt.setString(8, patient.getMedicalHistory());
             pstmt.setInt(9, patient.getPatientId());
 
-            return pstmt.executeUpdate() > 0;
+            boolean changed = pstmt.executeUpdate() > 0;
+            forgetRecord(patient.getPatientId());
+            if (changed) {
+                PatientSearchIndex.getInstance().put(patient);
+                BirthDateHistogram.getInstance().invalidate();
+                ReportCache.getInstance().invalidatePatientData();
+            }
+            return changed;
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -90,11 +176,33 @@ public class PatientDAO {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setInt(1, patientId);
-            return pstmt.executeUpdate() > 0;
+            boolean changed = pstmt.executeUpdate() > 0;
+            forgetRecord(patientId);
+            if (changed) {
+                PatientSearchIndex.getInstance().remove(patientId);
+                BirthDateHistogram.getInstance().invalidate();
+                // The patient's appointments go with them
+                ReportCache.getInstance().invalidatePatientData();
+                ReportCache.getInstance().invalidateAppointmentDate(null);
+            }
+            return changed;
 
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
     }
+
+    private static final class Record {
+        private final Patient patient;
+        private final long loadedAt = System.currentTimeMillis();
+
+        private Record(Patient patient) {
+            this.patient = patient;
+        }
+
+        private boolean isFresh() {
+            return System.currentTimeMillis() - loadedAt < RECORD_TTL_MILLIS;
+        }
+    }
 }
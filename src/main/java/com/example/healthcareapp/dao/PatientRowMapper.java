@@ -0,0 +1,53 @@
+package com.example.healthcareapp.dao;
+
+import com.example.healthcareapp.model.Patient;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Maps rows of the patients table; columns a projection leaves out stay unset
+class PatientRowMapper implements RowMapper<Patient> {
+    private final int patientId;
+    private final int firstName;
+    private final int lastName;
+    private final int dateOfBirth;
+    private final int gender;
+    private final int phone;
+    private final int email;
+    private final int address;
+    private final int medicalHistory;
+
+    PatientRowMapper(ResultSet rs) throws SQLException {
+        ColumnIndex columns = new ColumnIndex(rs.getMetaData());
+        patientId = columns.require("patient_id");
+        firstName = columns.require("first_name");
+        lastName = columns.require("last_name");
+        dateOfBirth = columns.optional("date_of_birth");
+        gender = columns.optional("gender");
+        phone = columns.optional("phone");
+        email = columns.optional("email");
+        address = columns.optional("address");
+        medicalHistory = columns.optional("medical_history");
+    }
+
+    @Override
+    public Patient mapRow(ResultSet rs) throws SQLException {
+        Patient patient = new Patient();
+        patient.setPatientId(rs.getInt(patientId));
+        patient.setFirstName(rs.getString(firstName));
+        patient.setLastName(rs.getString(lastName));
+
+        if (dateOfBirth > 0) {
+            Date dob = rs.getDate(dateOfBirth);
+            patient.setDateOfBirth(dob != null ? dob.toLocalDate() : null);
+        }
+        if (gender > 0) patient.setGender(rs.getString(gender));
+        if (phone > 0) patient.setPhone(rs.getString(phone));
+        if (email > 0) patient.setEmail(rs.getString(email));
+        if (address > 0) patient.setAddress(rs.getString(address));
+        if (medicalHistory > 0) patient.setMedicalHistory(rs.getString(medicalHistory));
+
+        return patient;
+    }
+}
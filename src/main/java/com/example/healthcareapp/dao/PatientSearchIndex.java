@@ -0,0 +1,230 @@
+package com.example.healthcareapp.dao;
+
+import com.example.healthcareapp.model.Patient;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory prefix index over patient names, phone numbers and emails for
+// typeahead search. Built once from the patient summaries and then kept
+// current by PatientDAO's add, update and delete.
+public class PatientSearchIndex {
+
+    private static PatientSearchIndex instance;
+
+    // token -> ids of patients with that token
+    private final TreeMap<String, Set<Integer>> tokens = new TreeMap<>();
+    // "last first" sort key -> patient, for browsing with an empty query
+    private final TreeMap<String, Patient> byName = new TreeMap<>();
+    private final Map<Integer, Patient> patients = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded = false;
+
+    private PatientSearchIndex() {}
+
+    public static synchronized PatientSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new PatientSearchIndex();
+        }
+        return instance;
+    }
+
+    // Up to limit patients with a name, phone or email starting with the query,
+    // or the first patients by name when the query is empty
+    public List<Patient> search(String query, int limit) {
+        ensureLoaded();
+        String prefix = normalize(query);
+        List<Patient> results = new ArrayList<>(Math.min(limit, 64));
+
+        lock.readLock().lock();
+        try {
+            if (prefix.isEmpty()) {
+                for (Patient patient : byName.values()) {
+                    if (results.size() >= limit) {
+                        break;
+                    }
+                    results.add(patient);
+                }
+                return results;
+            }
+
+            Set<Integer> matched = new LinkedHashSet<>();
+            collect(prefix, matched, limit);
+            String digits = digitsOf(prefix);
+            if (digits.length() >= 3 && !digits.equals(prefix)) {
+                // "(555) 12" should still find 555-123-4567
+                collect(digits, matched, limit);
+            }
+            for (int patientId : matched) {
+                results.add(patients.get(patientId));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collect(String prefix, Set<Integer> matched, int limit) {
+        NavigableMap<String, Set<Integer>> range = tokens.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        for (Set<Integer> ids : range.values()) {
+            for (int patientId : ids) {
+                matched.add(patientId);
+                if (matched.size() >= limit) {
+                    return;
+                }
+            }
+        }
+    }
+
+    public Patient get(int patientId) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return patients.get(patientId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Add or replace a patient; ignored until the index has been built, since
+    // the first build reads the current rows anyway
+    void put(Patient patient) {
+        if (!loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(patient.getPatientId());
+            addLocked(summaryOf(patient));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(int patientId) {
+        if (!loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(patientId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Rebuild from the database, e.g. after changes made by another client
+    public void reload() {
+        List<Patient> summaries = new PatientDAO().getPatientSummaries();
+        lock.writeLock().lock();
+        try {
+            tokens.clear();
+            byName.clear();
+            patients.clear();
+            for (Patient patient : summaries) {
+                addLocked(patient);
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    private void addLocked(Patient patient) {
+        int patientId = patient.getPatientId();
+        patients.put(patientId, patient);
+        byName.put(sortKey(patient), patient);
+        for (String token : tokensOf(patient)) {
+            tokens.computeIfAbsent(token, t -> new HashSet<>(2)).add(patientId);
+        }
+    }
+
+    private void removeLocked(int patientId) {
+        Patient existing = patients.remove(patientId);
+        if (existing == null) {
+            return;
+        }
+        byName.remove(sortKey(existing));
+        for (String token : tokensOf(existing)) {
+            Set<Integer> ids = tokens.get(token);
+            if (ids != null) {
+                ids.remove(patientId);
+                if (ids.isEmpty()) {
+                    tokens.remove(token);
+                }
+            }
+        }
+    }
+
+    private static Set<String> tokensOf(Patient patient) {
+        Set<String> result = new HashSet<>();
+        String first = normalize(patient.getFirstName());
+        String last = normalize(patient.getLastName());
+        addToken(result, first);
+        addToken(result, last);
+        // Full name in both orders so "john sm" and "smith j" match
+        addToken(result, (first + " " + last).trim());
+        addToken(result, (last + " " + first).trim());
+        addToken(result, digitsOf(patient.getPhone() != null ? patient.getPhone() : ""));
+        addToken(result, normalize(patient.getEmail()));
+        return result;
+    }
+
+    private static void addToken(Set<String> result, String token) {
+        if (!token.isEmpty()) {
+            result.add(token);
+        }
+    }
+
+    private static String sortKey(Patient patient) {
+        return normalize(patient.getLastName()) + " " + normalize(patient.getFirstName()) +
+                "\u0000" + patient.getPatientId();
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    private static String digitsOf(String value) {
+        StringBuilder digits = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    // Keep only the fields list views use, not address or medical history
+    private static Patient summaryOf(Patient patient) {
+        Patient summary = new Patient();
+        summary.setPatientId(patient.getPatientId());
+        summary.setFirstName(patient.getFirstName());
+        summary.setLastName(patient.getLastName());
+        summary.setDateOfBirth(patient.getDateOfBirth());
+        summary.setGender(patient.getGender());
+        summary.setPhone(patient.getPhone());
+        summary.setEmail(patient.getEmail());
+        return summary;
+    }
+}
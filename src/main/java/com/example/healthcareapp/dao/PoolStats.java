@@ -0,0 +1,65 @@
+package com.example.healthcareapp.dao;
+
+// Point-in-time snapshot of connection pool usage, used for sizing the pool
+public class PoolStats {
+    private final int active;
+    private final int idle;
+    private final int total;
+    private final int maxSize;
+    private final int waitingThreads;
+    private final long borrowCount;
+    private final long timeoutCount;
+    private final long leakCount;
+    private final long evictedCount;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+    private final double waitP50Millis;
+    private final double waitP95Millis;
+    private final double waitP99Millis;
+    private final double waitMaxMillis;
+
+    public PoolStats(int active, int idle, int total, int maxSize, int waitingThreads,
+                     long borrowCount, long timeoutCount, long leakCount, long evictedCount,
+                     long statementCacheHits, long statementCacheMisses,
+                     double waitP50Millis, double waitP95Millis, double waitP99Millis, double waitMaxMillis) {
+        this.active = active;
+        this.idle = idle;
+        this.total = total;
+        this.maxSize = maxSize;
+        this.waitingThreads = waitingThreads;
+        this.borrowCount = borrowCount;
+        this.timeoutCount = timeoutCount;
+        this.leakCount = leakCount;
+        this.evictedCount = evictedCount;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+        this.waitP50Millis = waitP50Millis;
+        this.waitP95Millis = waitP95Millis;
+        this.waitP99Millis = waitP99Millis;
+        this.waitMaxMillis = waitMaxMillis;
+    }
+
+    public int getActive() { return active; }
+    public int getIdle() { return idle; }
+    public int getTotal() { return total; }
+    public int getMaxSize() { return maxSize; }
+    public int getWaitingThreads() { return waitingThreads; }
+    public long getBorrowCount() { return borrowCount; }
+    public long getTimeoutCount() { return timeoutCount; }
+    public long getLeakCount() { return leakCount; }
+    public long getEvictedCount() { return evictedCount; }
+    public long getStatementCacheHits() { return statementCacheHits; }
+    public long getStatementCacheMisses() { return statementCacheMisses; }
+    public double getWaitP50Millis() { return waitP50Millis; }
+    public double getWaitP95Millis() { return waitP95Millis; }
+    public double getWaitP99Millis() { return waitP99Millis; }
+    public double getWaitMaxMillis() { return waitMaxMillis; }
+
+    @Override
+    public String toString() {
+        return String.format("Pool: active=%d idle=%d total=%d/%d waiting=%d borrows=%d timeouts=%d leaks=%d evicted=%d " +
+                        "| statements hits=%d misses=%d | wait p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms",
+                active, idle, total, maxSize, waitingThreads, borrowCount, timeoutCount, leakCount, evictedCount,
+                statementCacheHits, statementCacheMisses, waitP50Millis, waitP95Millis, waitP99Millis, waitMaxMillis);
+    }
+}
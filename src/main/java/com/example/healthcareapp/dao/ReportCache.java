@@ -0,0 +1,185 @@
+package com.example.healthcareapp.dao;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Computed reports, keyed by report type, date range and bucket size. Entries
+// expire after a TTL, the least recently used are evicted past a fixed size,
+// and AppointmentDAO / PatientDAO writes drop the entries they could affect.
+// Cached values are shared, so callers must treat them as read-only.
+public class ReportCache {
+
+    private static final int MAX_ENTRIES = 64;
+    private static final long TTL_MILLIS = 5 * 60 * 1000;
+
+    private static ReportCache instance;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Bumped by every invalidation so a report computed across one is not stored
+    private long version = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private ReportCache() {}
+
+    public static synchronized ReportCache getInstance() {
+        if (instance == null) {
+            instance = new ReportCache();
+        }
+        return instance;
+    }
+
+    // Cached value for the key, or the loader's result, stored if cacheable
+    public <T> T get(Key key, Supplier<T> loader, Predicate<? super T> cacheable) {
+        long startVersion;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() - entry.createdAt < TTL_MILLIS) {
+                hits.incrementAndGet();
+                @SuppressWarnings("unchecked")
+                T value = (T) entry.value;
+                return value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+            startVersion = version;
+        }
+
+        misses.incrementAndGet();
+        T value = loader.get();
+
+        if (value != null && cacheable.test(value)) {
+            synchronized (this) {
+                if (version == startVersion) {
+                    entries.put(key, new Entry(value));
+                    while (entries.size() > MAX_ENTRIES) {
+                        Iterator<Key> eldest = entries.keySet().iterator();
+                        eldest.next();
+                        eldest.remove();
+                        evictions.incrementAndGet();
+                    }
+                }
+            }
+        }
+        return value;
+    }
+
+    // An appointment on this date was created, changed or removed
+    public synchronized void invalidateAppointmentDate(LocalDate date) {
+        version++;
+        removeIf(key -> key.covers(date));
+    }
+
+    // A patient was added, changed or removed
+    public synchronized void invalidatePatientData() {
+        version++;
+        removeIf(key -> key.usesPatientData);
+    }
+
+    public synchronized void clear() {
+        version++;
+        removeIf(key -> true);
+    }
+
+    private void removeIf(Predicate<Key> affected) {
+        Iterator<Key> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (affected.test(iterator.next())) {
+                iterator.remove();
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+
+    public synchronized String getStats() {
+        long total = hits.get() + misses.get();
+        return String.format("Report cache: entries=%d hits=%d misses=%d (%.1f%% hit rate) evictions=%d invalidations=%d",
+                entries.size(), hits.get(), misses.get(), total > 0 ? hits.get() * 100.0 / total : 0,
+                evictions.get(), invalidations.get());
+    }
+
+    // Identifies one computed report and the data it was computed from
+    public static final class Key {
+        private final String reportType;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final String bucket;
+        private final boolean usesAppointments;
+        private final boolean usesPatientData;
+
+        private Key(String reportType, LocalDate startDate, LocalDate endDate, String bucket,
+                    boolean usesAppointments, boolean usesPatientData) {
+            this.reportType = reportType;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.bucket = bucket;
+            this.usesAppointments = usesAppointments;
+            this.usesPatientData = usesPatientData;
+        }
+
+        // Reads appointments dated from start to end (either may be null for no bound)
+        public static Key appointments(String reportType, LocalDate startDate, LocalDate endDate, String bucket) {
+            return new Key(reportType, startDate, endDate, bucket, true, false);
+        }
+
+        // Reads the patients table only
+        public static Key patients(String reportType, String bucket) {
+            return new Key(reportType, null, null, bucket, false, true);
+        }
+
+        // Reads both appointments in the range and the patients table
+        public static Key appointmentsAndPatients(String reportType, LocalDate startDate, LocalDate endDate, String bucket) {
+            return new Key(reportType, startDate, endDate, bucket, true, true);
+        }
+
+        private boolean covers(LocalDate date) {
+            return usesAppointments && (date == null ||
+                    ((startDate == null || !date.isBefore(startDate)) && (endDate == null || !date.isAfter(endDate))));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return usesAppointments == other.usesAppointments &&
+                    usesPatientData == other.usesPatientData &&
+                    reportType.equals(other.reportType) &&
+                    Objects.equals(startDate, other.startDate) &&
+                    Objects.equals(endDate, other.endDate) &&
+                    Objects.equals(bucket, other.bucket);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(reportType, startDate, endDate, bucket, usesAppointments, usesPatientData);
+        }
+
+        @Override
+        public String toString() {
+            return reportType + " [" + startDate + " - " + endDate + ", " + bucket + "]";
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long createdAt = System.currentTimeMillis();
+
+        private Entry(Object value) {
+            this.value = value;
+        }
+    }
+}
@@ -1,193 +1,522 @@
 package com.example.healthcareapp.dao;
 
+import com.example.healthcareapp.model.AgeGenderHistogram;
 import com.example.healthcareapp.model.AnalyticsReport;
+import com.example.healthcareapp.model.CohortRetention;
+import com.example.healthcareapp.model.DoctorRankingRow;
+import com.example.healthcareapp.model.SlotDistribution;
+import com.example.healthcareapp.model.TimeSeries;
+import com.example.healthcareapp.util.HyperLogLog;
 
 import java.sql.*;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class ReportingService {
 
-    // Generate comprehensive analytics report
+    // Report sections run concurrently, each on its own pooled connection
+    private static final ExecutorService sectionExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    // Sections still running after this are left out of the report
+    private static final long REPORT_TIMEOUT_MILLIS = 10_000;
+    private static final int QUERY_TIMEOUT_SECONDS = (int) (REPORT_TIMEOUT_MILLIS / 1000);
+    // Relative error allowed for unique patient counts in reports; within what
+    // promoted rollup sets give, so long ranges never need a distinct scan
+    public static final double UNIQUE_PATIENTS_ERROR = 0.02;
+    // Ranges up to this many days are counted straight from appointments,
+    // which reads about as many rows as the rollups and is always exact
+    private static final int EXACT_SCAN_DAYS = 31;
+
+    // One independent part of a report. It runs its query on a worker thread
+    // and returns how to apply the result, which happens on the caller's thread.
+    @FunctionalInterface
+    private interface ReportSection {
+        Consumer<AnalyticsReport> load() throws SQLException;
+    }
+
+    private final ReportCache reportCache = ReportCache.getInstance();
+
+    // Generate comprehensive analytics report. Partial reports are not cached,
+    // so the next request retries the sections that were missing.
     public AnalyticsReport generateAnalyticsReport(LocalDate startDate, LocalDate endDate) {
+        ReportCache.Key key = ReportCache.Key.appointmentsAndPatients("Comprehensive Analytics", startDate, endDate, null);
+        return reportCache.get(key, () -> computeAnalyticsReport(startDate, endDate), report -> !report.isPartial());
+    }
+
+    // Total time approaches that of the slowest section; sections that fail
+    // or time out are listed as missing.
+    private AnalyticsReport computeAnalyticsReport(LocalDate startDate, LocalDate endDate) {
         AnalyticsReport report = new AnalyticsReport();
         report.setReportType("Comprehensive Analytics");
         report.setStartDate(startDate);
         report.setEndDate(endDate);
 
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            // Get patient demographics
-            reportPatientDemographics(conn, report);
-
-            // Get appointment statistics
-            reportAppointmentStats(conn, report, startDate, endDate);
-
-            // Get doctor performance (last 6 months)
-            reportDoctorPerformance(conn, report);
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        Map<String, ReportSection> sections = new LinkedHashMap<>();
+        sections.put("Patient demographics", this::loadPatientTotals);
+        sections.put("Gender distribution", this::loadGenderDistribution);
+        sections.put("Appointment statistics", () -> loadAppointmentTotals(startDate, endDate));
+        sections.put("Unique patients", () -> loadUniquePatients(startDate, endDate));
 
+        runSections(report, sections);
         return report;
     }
 
-    private void reportPatientDemographics(Connection conn, AnalyticsReport report) throws SQLException {
-        String sql = "SELECT COUNT(*) as total, AVG(TIMESTAMPDIFF(YEAR, date_of_birth, CURDATE())) as avg_age FROM patients";
+    private void runSections(AnalyticsReport report, Map<String, ReportSection> sections) {
+        List<String> names = new ArrayList<>(sections.keySet());
+        List<Callable<Consumer<AnalyticsReport>>> tasks = new ArrayList<>();
+        for (ReportSection section : sections.values()) {
+            tasks.add(section::load);
+        }
 
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                report.setTotalPatients(rs.getInt("total"));
-                report.setAvgPatientAge(rs.getDouble("avg_age"));
-            }
+        List<Future<Consumer<AnalyticsReport>>> results;
+        try {
+            results = sectionExecutor.invokeAll(tasks, REPORT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            names.forEach(report::addMissingSection);
+            return;
         }
 
-        // Gender distribution
-        String genderSql = "SELECT gender, COUNT(*) as count FROM patients GROUP BY gender";
-        try (PreparedStatement pstmt = conn.prepareStatement(genderSql)) {
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                report.updateGenderDistribution(rs.getString("gender"), rs.getInt("count"));
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                results.get(i).get().accept(report);
+            } catch (CancellationException e) {
+                System.err.println("Report section timed out: " + names.get(i));
+                report.addMissingSection(names.get(i));
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace();
+                report.addMissingSection(names.get(i));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                report.addMissingSection(names.get(i));
             }
         }
     }
 
-    private void reportAppointmentStats(Connection conn, AnalyticsReport report, LocalDate startDate, LocalDate endDate) throws SQLException {
-        String sql = "SELECT COUNT(*) as total, " +
-                "SUM(CASE WHEN status = 'Completed' THEN 1 ELSE 0 END) as completed, " +
-                "COUNT(DISTINCT patient_id) as unique_patients " +
-                "FROM appointments " +
-                "WHERE appointment_date BETWEEN ? AND ?";
+    // Patient counts and ages come from the in-memory birth date histogram,
+    // so no section scans the patients table or computes an age per row. The
+    // total and genders count every patient; the age only those with a birth date.
+    private Consumer<AnalyticsReport> loadPatientTotals() throws SQLException {
+        BirthDateHistogram births = BirthDateHistogram.getInstance();
+        int total = births.getTotal();
+        double avgAge = births.getAverageAge(LocalDate.now());
+        return report -> {
+            report.setTotalPatients(total);
+            report.setAvgPatientAge(avgAge);
+        };
+    }
 
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setDate(1, java.sql.Date.valueOf(startDate));
-            pstmt.setDate(2, java.sql.Date.valueOf(endDate));
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                report.setTotalAppointments(rs.getInt("total"));
-                report.setCompletedAppointments(rs.getInt("completed"));
-                double rate = rs.getInt("total") > 0 ?
-                        (double) rs.getInt("completed") / rs.getInt("total") * 100 : 0;
-                report.setCompletionRate(rate);
-            }
+    private Consumer<AnalyticsReport> loadGenderDistribution() throws SQLException {
+        Map<String, Integer> genders = BirthDateHistogram.getInstance().getGenderCounts();
+        return report -> genders.forEach(report::updateGenderDistribution);
+    }
+
+    // Totals and the status distribution, from one count per status
+    private Consumer<AnalyticsReport> loadAppointmentTotals(LocalDate startDate, LocalDate endDate) throws SQLException {
+        Map<String, Integer> counts = countByStatus(startDate, endDate);
+        int total = counts.values().stream().mapToInt(Integer::intValue).sum();
+        int completed = counts.getOrDefault("Completed", 0);
+        double rate = total > 0 ? (double) completed / total * 100 : 0;
+        return report -> {
+            report.setTotalAppointments(total);
+            report.setCompletedAppointments(completed);
+            report.setCompletionRate(rate);
+            counts.forEach(report::updateStatusDistribution);
+        };
+    }
+
+    private Consumer<AnalyticsReport> loadUniquePatients(LocalDate startDate, LocalDate endDate) throws SQLException {
+        long uniquePatients = uniquePatients(startDate, endDate, null, null, UNIQUE_PATIENTS_ERROR);
+        return report -> report.setUniquePatients((int) uniquePatients);
+    }
+
+    // Summed from the daily rollups, or counted from appointments if they are unavailable
+    private Map<String, Integer> countByStatus(LocalDate startDate, LocalDate endDate) throws SQLException {
+        DailyRollupStore rollups = DailyRollupStore.getInstance();
+        if (rollups.isAvailable()) {
+            return rollups.getStatusCounts(startDate, endDate);
         }
 
-        // Status distribution
-        String statusSql = "SELECT status, COUNT(*) as count " +
+        String sql = "SELECT status, COUNT(*) as count " +
                 "FROM appointments " +
                 "WHERE appointment_date BETWEEN ? AND ? " +
                 "GROUP BY status";
-        try (PreparedStatement pstmt = conn.prepareStatement(statusSql)) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
             pstmt.setDate(1, java.sql.Date.valueOf(startDate));
             pstmt.setDate(2, java.sql.Date.valueOf(endDate));
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                report.updateStatusDistribution(rs.getString("status"), rs.getInt("count"));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    counts.put(rs.getString("status"), rs.getInt("count"));
+                }
             }
         }
+        return counts;
     }
 
-    private void reportDoctorPerformance(Connection conn, AnalyticsReport report) throws SQLException {
-        String sql = "SELECT COUNT(a.appointment_id) as total_doctor_appts, " +
-                "AVG(doctor_completion_rate) as avg_doctor_rate " +
-                "FROM (SELECT u.user_id, " +
-                "      ROUND(COUNT(CASE WHEN a.status = 'Completed' THEN 1 END) / " +
-                "      NULLIF(COUNT(a.appointment_id), 0) * 100, 2) as doctor_completion_rate " +
-                "      FROM users u " +
-                "      LEFT JOIN appointments a ON u.user_id = a.doctor_id " +
-                "      WHERE u.role = 'Doctor' AND u.is_active = TRUE " +
-                "      GROUP BY u.user_id) doctor_stats";
-
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                // You could store this as additional metrics
-                System.out.println("Average Doctor Completion Rate: " + rs.getDouble("avg_doctor_rate") + "%");
-                System.out.println("Total Doctor Appointments: " + rs.getInt("total_doctor_appts"));
-            }
+    // Patients by age band and gender, bandWidth years per band. Null if the
+    // query failed.
+    public AgeGenderHistogram generateAgeGenderHistogram(int bandWidth) {
+        ReportCache.Key key = ReportCache.Key.patients("Age Gender Histogram", String.valueOf(bandWidth));
+        return reportCache.get(key, () -> computeAgeGenderHistogram(bandWidth), result -> true);
+    }
+
+    private AgeGenderHistogram computeAgeGenderHistogram(int bandWidth) {
+        try {
+            return BirthDateHistogram.getInstance().toAgeHistogram(bandWidth, LocalDate.now());
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
         }
     }
 
-    // Generate specific report types
-    public List<AnalyticsReport> generatePatientAgeReport(int ageGroups) {
-        List<AnalyticsReport> reports = new ArrayList<>();
-        String sql = "SELECT " +
-                "FLOOR(TIMESTAMPDIFF(YEAR, date_of_birth, CURDATE()) / ?) * ? as age_group, " +
-                "COUNT(*) as count, " +
-                "gender " +
-                "FROM patients " +
-                "GROUP BY age_group, gender " +
-                "ORDER BY age_group";
+    // Monthly appointment trend over the last 12 months
+    public TimeSeries generateMonthlyAppointmentTrend() {
+        LocalDate today = LocalDate.now();
+        return generateAppointmentTrend(today.minusMonths(12), today, TimeSeries.Bucket.MONTH);
+    }
+
+    // Total and completed appointments per bucket from start to end, with
+    // empty buckets included. Null if the query failed.
+    public TimeSeries generateAppointmentTrend(LocalDate startDate, LocalDate endDate, TimeSeries.Bucket bucket) {
+        ReportCache.Key key = ReportCache.Key.appointments("Appointment Trend", startDate, endDate, bucket.name());
+        return reportCache.get(key, () -> computeAppointmentTrend(startDate, endDate, bucket), result -> true);
+    }
+
+    private TimeSeries computeAppointmentTrend(LocalDate startDate, LocalDate endDate, TimeSeries.Bucket bucket) {
+        // One row per day in date order, from the daily rollups when available;
+        // each day is added to its bucket as it arrives
+        String sql = DailyRollupStore.getInstance().isAvailable()
+                ? "SELECT rollup_date as day, SUM(appointment_count) as total, " +
+                  "SUM(CASE WHEN status = 'Completed' THEN appointment_count ELSE 0 END) as completed " +
+                  "FROM appointment_daily_rollup " +
+                  "WHERE rollup_date BETWEEN ? AND ? " +
+                  "GROUP BY rollup_date ORDER BY rollup_date"
+                : "SELECT appointment_date as day, COUNT(*) as total, " +
+                  "SUM(CASE WHEN status = 'Completed' THEN 1 ELSE 0 END) as completed " +
+                  "FROM appointments " +
+                  "WHERE appointment_date BETWEEN ? AND ? " +
+                  "GROUP BY appointment_date ORDER BY appointment_date";
+
+        TimeSeries series = new TimeSeries(bucket, startDate, endDate);
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setInt(1, ageGroups);
-            pstmt.setInt(2, ageGroups);
-            ResultSet rs = pstmt.executeQuery();
-
-            AnalyticsReport currentReport = null;
-            while (rs.next()) {
-                int ageGroup = rs.getInt("age_group");
-                String gender = rs.getString("gender");
-                int count = rs.getInt("count");
+            pstmt.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+            pstmt.setDate(1, java.sql.Date.valueOf(startDate));
+            pstmt.setDate(2, java.sql.Date.valueOf(endDate));
 
-                if (currentReport == null || currentReport.getReportType().isEmpty()) {
-                    currentReport = new AnalyticsReport();
-                    currentReport.setReportType("Patient Age Distribution (" + ageGroups + " year groups)");
-                    reports.add(currentReport);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                int index = 0;
+                while (rs.next()) {
+                    index = series.indexOf(rs.getDate(1).toLocalDate().toEpochDay(), index);
+                    series.add(index, rs.getInt(2), rs.getInt(3));
                 }
-
-                currentReport.updateGenderDistribution(
-                        ageGroup + "s (" + gender + ")", count);
             }
 
         } catch (SQLException e) {
             e.printStackTrace();
+            return null;
         }
 
-        return reports;
+        return series;
+    }
+
+    // Booked appointments per time slot of the day over the date range, for
+    // staffing against actual slot pressure. doctorId and weekday narrow it
+    // down when not null. Cancelled appointments free their slot, so they are
+    // left out. Null if the query failed.
+    public SlotDistribution getSlotDistribution(LocalDate startDate, LocalDate endDate,
+                                                Integer doctorId, DayOfWeek weekday, int slotMinutes) {
+        String bucket = slotMinutes + "m" +
+                (doctorId != null ? " doctor " + doctorId : "") +
+                (weekday != null ? " " + weekday : "");
+        ReportCache.Key key = ReportCache.Key.appointments("Slot Distribution", startDate, endDate, bucket);
+        return reportCache.get(key, () -> computeSlotDistribution(startDate, endDate, doctorId, weekday, slotMinutes),
+                result -> true);
     }
 
-    // Monthly appointment trend
-    public List<AnalyticsReport> generateMonthlyAppointmentTrend() {
-        List<AnalyticsReport> reports = new ArrayList<>();
-        String sql = "SELECT " +
-                "YEAR(appointment_date) as year, " +
-                "MONTH(appointment_date) as month, " +
-                "COUNT(*) as appointments, " +
-                "SUM(CASE WHEN status = 'Completed' THEN 1 ELSE 0 END) as completed " +
+    private SlotDistribution computeSlotDistribution(LocalDate startDate, LocalDate endDate,
+                                                     Integer doctorId, DayOfWeek weekday, int slotMinutes) {
+        // A plain range on appointment_date, no function of it, so an index led
+        // by appointment_date (or doctor_id, appointment_date) bounds the scan;
+        // the slot is computed from appointment_time only for matching rows
+        StringBuilder sql = new StringBuilder("SELECT TIME_TO_SEC(appointment_time) DIV ? as slot, COUNT(*) as count " +
                 "FROM appointments " +
-                "WHERE appointment_date >= DATE_SUB(CURDATE(), INTERVAL 12 MONTH) " +
-                "GROUP BY YEAR(appointment_date), MONTH(appointment_date) " +
-                "ORDER BY year DESC, month DESC";
+                "WHERE appointment_date BETWEEN ? AND ? " +
+                "AND status <> 'Cancelled' ");
+        if (doctorId != null) {
+            sql.append("AND doctor_id = ? ");
+        }
+        if (weekday != null) {
+            sql.append("AND DAYOFWEEK(appointment_date) = ? ");
+        }
+        sql.append("GROUP BY slot");
+
+        SlotDistribution distribution = new SlotDistribution(slotMinutes);
 
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+
+            int index = 1;
+            pstmt.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+            pstmt.setInt(index++, slotMinutes * 60);
+            pstmt.setDate(index++, java.sql.Date.valueOf(startDate));
+            pstmt.setDate(index++, java.sql.Date.valueOf(endDate));
+            if (doctorId != null) {
+                pstmt.setInt(index++, doctorId);
+            }
+            if (weekday != null) {
+                // MySQL numbers days from Sunday = 1
+                pstmt.setInt(index++, weekday.getValue() % 7 + 1);
+            }
 
-            AnalyticsReport report = new AnalyticsReport();
-            report.setReportType("Monthly Appointment Trends (Last 12 Months)");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int slot = rs.getInt("slot");
+                    if (slot >= 0 && slot < distribution.getSlotCount()) {
+                        distribution.add(slot, rs.getInt("count"));
+                    }
+                }
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+
+        return distribution;
+    }
+
+    // One page of doctors with appointments in the range, best first: by
+    // ranking score, then appointment volume, then id so pages are stable.
+    // The score is the lower bound of the 95% Wilson interval of the
+    // completion rate, so 1 completed out of 1 ranks below 495 out of 500.
+    // Scores are computed, ordered and limited in the database, and distinct
+    // patients are counted only for the doctors on the page. Null if the
+    // query failed.
+    public List<DoctorRankingRow> getDoctorRanking(LocalDate startDate, LocalDate endDate, int limit, int offset) {
+        ReportCache.Key key = ReportCache.Key.appointments("Doctor Ranking", startDate, endDate, limit + "@" + offset);
+        return reportCache.get(key, () -> computeDoctorRanking(startDate, endDate, limit, offset), result -> true);
+    }
 
-            while (rs.next()) {
-                String monthKey = rs.getInt("year") + "-" + String.format("%02d", rs.getInt("month"));
-                int total = rs.getInt("appointments");
-                int completed = rs.getInt("completed");
+    private List<DoctorRankingRow> computeDoctorRanking(LocalDate startDate, LocalDate endDate, int limit, int offset) {
+        String perDoctor = DailyRollupStore.getInstance().isAvailable()
+                ? "SELECT doctor_id, SUM(appointment_count) as appointment_count, " +
+                  "SUM(CASE WHEN status = 'Completed' THEN appointment_count ELSE 0 END) as completed " +
+                  "FROM appointment_daily_rollup " +
+                  "WHERE rollup_date BETWEEN ? AND ? " +
+                  "GROUP BY doctor_id"
+                : "SELECT doctor_id, COUNT(*) as appointment_count, " +
+                  "SUM(CASE WHEN status = 'Completed' THEN 1 ELSE 0 END) as completed " +
+                  "FROM appointments " +
+                  "WHERE appointment_date BETWEEN ? AND ? " +
+                  "GROUP BY doctor_id";
+
+        // Wilson lower bound with z = 1.96 (z^2 = 3.8416), as a percentage:
+        // (p + z^2/2n - z/n * sqrt(c(n - c)/n + z^2/4)) / (1 + z^2/n)
+        String sql = "SELECT d.doctor_id, u.full_name, d.appointment_count, " +
+                "d.completed * 100.0 / d.appointment_count as completion_rate, " +
+                "100 * (d.completed / d.appointment_count + 1.9208 / d.appointment_count " +
+                "- 1.96 / d.appointment_count * SQRT(d.completed * (d.appointment_count - d.completed) " +
+                "/ d.appointment_count + 0.9604)) / (1 + 3.8416 / d.appointment_count) as ranking_score " +
+                "FROM (" + perDoctor + ") d " +
+                "JOIN users u ON u.user_id = d.doctor_id " +
+                "WHERE d.appointment_count > 0 " +
+                "ORDER BY ranking_score DESC, d.appointment_count DESC, d.doctor_id " +
+                "LIMIT ? OFFSET ?";
+
+        // In ranking order; patient counts are filled in by the second query
+        Map<Integer, DoctorRankingRow> rows = new LinkedHashMap<>();
 
-                report.updateStatusDistribution(monthKey + " Total", total);
-                report.updateStatusDistribution(monthKey + " Completed", completed);
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+                pstmt.setDate(1, java.sql.Date.valueOf(startDate));
+                pstmt.setDate(2, java.sql.Date.valueOf(endDate));
+                pstmt.setInt(3, limit);
+                pstmt.setInt(4, offset);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        int doctorId = rs.getInt("doctor_id");
+                        rows.put(doctorId, DoctorRankingRow.createFromDatabase(doctorId, rs.getString("full_name"),
+                                rs.getDouble("completion_rate"), 0, rs.getInt("appointment_count"),
+                                rs.getDouble("ranking_score"), offset + rows.size() + 1));
+                    }
+                }
+            }
+
+            if (!rows.isEmpty()) {
+                String placeholders = String.join(", ", Collections.nCopies(rows.size(), "?"));
+                String patients = "SELECT doctor_id, COUNT(DISTINCT patient_id) as patient_count " +
+                        "FROM appointments " +
+                        "WHERE appointment_date BETWEEN ? AND ? AND doctor_id IN (" + placeholders + ") " +
+                        "GROUP BY doctor_id";
+                try (PreparedStatement pstmt = conn.prepareStatement(patients)) {
+                    pstmt.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+                    pstmt.setDate(1, java.sql.Date.valueOf(startDate));
+                    pstmt.setDate(2, java.sql.Date.valueOf(endDate));
+                    int index = 3;
+                    for (int doctorId : rows.keySet()) {
+                        pstmt.setInt(index++, doctorId);
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            rows.get(rs.getInt("doctor_id")).patientCountProperty().set(rs.getInt("patient_count"));
+                        }
+                    }
+                }
             }
 
-            reports.add(report);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+
+        return new ArrayList<>(rows.values());
+    }
+
+    // Distinct patients with appointments in the range, optionally for one
+    // doctor and/or status. Ranges longer than EXACT_SCAN_DAYS merge the
+    // daily rollup sets, exact unless busy days were promoted to sketches,
+    // which must then meet relativeError (a standard error, e.g. 0.02 for 2%).
+    // Counted exactly when relativeError is 0, tighter than the stored
+    // sketches, or the rollups are unavailable. -1 if the query failed.
+    public long countUniquePatients(LocalDate startDate, LocalDate endDate, Integer doctorId,
+                                    String status, double relativeError) {
+        try {
+            return uniquePatients(startDate, endDate, doctorId, status, relativeError);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    private long uniquePatients(LocalDate startDate, LocalDate endDate, Integer doctorId,
+                                String status, double relativeError) throws SQLException {
+        int precision = relativeError > 0 ? HyperLogLog.precisionFor(relativeError) : -1;
+        if (precision > 0 && precision <= DailyRollupStore.SKETCH_PRECISION
+                && ChronoUnit.DAYS.between(startDate, endDate) >= EXACT_SCAN_DAYS
+                && DailyRollupStore.getInstance().isAvailable()) {
+            return DailyRollupStore.getInstance().estimateUniquePatients(startDate, endDate, doctorId, status, precision);
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT COUNT(DISTINCT patient_id) FROM appointments " +
+                "WHERE appointment_date BETWEEN ? AND ? ");
+        if (doctorId != null) {
+            sql.append("AND doctor_id = ? ");
+        }
+        if (status != null) {
+            sql.append("AND status = ? ");
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+
+            int index = 1;
+            pstmt.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+            pstmt.setDate(index++, java.sql.Date.valueOf(startDate));
+            pstmt.setDate(index++, java.sql.Date.valueOf(endDate));
+            if (doctorId != null) {
+                pstmt.setInt(index++, doctorId);
+            }
+            if (status != null) {
+                pstmt.setString(index++, status);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    // Patients whose first appointment falls from start to end, grouped by
+    // that month, with how many returned in each later month up to end.
+    // Cancelled appointments are not visits. Null if the query failed.
+    public CohortRetention generateRetentionCohorts(LocalDate startDate, LocalDate endDate) {
+        // A patient's cohort depends on appointments before the start too
+        ReportCache.Key key = ReportCache.Key.appointments("Patient Retention", null, endDate, "from " + startDate);
+        return reportCache.get(key, () -> computeRetentionCohorts(startDate, endDate), result -> true);
+    }
+
+    private CohortRetention computeRetentionCohorts(LocalDate startDate, LocalDate endDate) {
+        // Appointments up to the end of only those patients whose first visit
+        // falls in the range, found by the grouped subquery on the server,
+        // grouped by patient in date order so the first row of each patient
+        // gives their cohort. Only two ints are read per row and nothing is
+        // kept per patient beyond the current one; an index on
+        // (patient_id, appointment_date) serves the grouping and ordering.
+        String sql = "SELECT a.patient_id, YEAR(a.appointment_date) * 12 + MONTH(a.appointment_date) - 1 as month " +
+                "FROM appointments a " +
+                "JOIN (SELECT patient_id, MIN(appointment_date) as first_date FROM appointments " +
+                "WHERE status != 'Cancelled' GROUP BY patient_id " +
+                "HAVING MIN(appointment_date) BETWEEN ? AND ?) f ON a.patient_id = f.patient_id " +
+                "WHERE a.appointment_date BETWEEN f.first_date AND ? AND a.status != 'Cancelled' " +
+                "ORDER BY a.patient_id, a.appointment_date";
+
+        CohortRetention retention = new CohortRetention(startDate, endDate);
+        int lastMonth = CohortRetention.epochMonth(endDate);
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // Stream rows from the server instead of buffering the whole result
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            pstmt.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+            // Cohorts are whole months, so the first one starts on the 1st
+            pstmt.setDate(1, java.sql.Date.valueOf(startDate.withDayOfMonth(1)));
+            pstmt.setDate(2, java.sql.Date.valueOf(endDate));
+            pstmt.setDate(3, java.sql.Date.valueOf(endDate));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                int patientId = 0;
+                int cohort = -1;
+                int joinedMonth = 0;
+                // Last month counted for the current patient, so several
+                // appointments in one month count once
+                int countedMonth = Integer.MIN_VALUE;
+                boolean first = true;
+
+                while (rs.next()) {
+                    int id = rs.getInt(1);
+                    int month = rs.getInt(2);
+                    if (first || id != patientId) {
+                        first = false;
+                        patientId = id;
+                        joinedMonth = month;
+                        cohort = retention.cohortOf(month);
+                        countedMonth = Integer.MIN_VALUE;
+                    }
+                    if (cohort < 0 || month == countedMonth || month > lastMonth) {
+                        continue;
+                    }
+                    retention.record(cohort, month - joinedMonth);
+                    countedMonth = month;
+                }
+            }
 
         } catch (SQLException e) {
             e.printStackTrace();
+            return null;
         }
 
-        return reports;
+        return retention;
     }
 }
@@ -0,0 +1,10 @@
+package com.example.healthcareapp.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Converts the current row of a ResultSet into an object
+@FunctionalInterface
+interface RowMapper<T> {
+    T mapRow(ResultSet rs) throws SQLException;
+}
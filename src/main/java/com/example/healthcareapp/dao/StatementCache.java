@@ -0,0 +1,191 @@
+package com.example.healthcareapp.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-connection LRU cache of prepared statements keyed by SQL text. Callers
+// still close() what they prepare; a cached statement is then reset and kept
+// for the next caller on the same physical connection.
+final class StatementCache {
+    static final int NO_GENERATED_KEYS = -1;
+
+    private final Connection physical;
+    private final int maxSize;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int maxSize, AtomicLong hits, AtomicLong misses) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    PreparedStatement prepare(Connection handle, String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys + "|" + sql;
+        CachedStatement cached = statements.get(key);
+
+        if (cached != null && cached.inUse) {
+            // Same SQL already open on this connection (nested use): hand out a one-off statement
+            misses.incrementAndGet();
+            return create(sql, autoGeneratedKeys);
+        }
+
+        if (cached == null) {
+            misses.incrementAndGet();
+            cached = new CachedStatement(key, create(sql, autoGeneratedKeys));
+            statements.put(key, cached);
+            evictOverflow();
+        } else {
+            hits.incrementAndGet();
+        }
+
+        cached.inUse = true;
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new Lease(cached, handle));
+    }
+
+    // Called when the connection goes back to the pool: reclaim statements callers left open
+    void releaseAll() {
+        List<CachedStatement> open = new ArrayList<>();
+        for (CachedStatement cached : statements.values()) {
+            if (cached.inUse) {
+                open.add(cached);
+            }
+        }
+        for (CachedStatement cached : open) {
+            giveBack(cached);
+        }
+    }
+
+    private PreparedStatement create(String sql, int autoGeneratedKeys) throws SQLException {
+        return autoGeneratedKeys == NO_GENERATED_KEYS
+                ? physical.prepareStatement(sql)
+                : physical.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, CachedStatement>> iterator = statements.entrySet().iterator();
+        while (statements.size() > maxSize && iterator.hasNext()) {
+            CachedStatement eldest = iterator.next().getValue();
+            if (eldest.inUse) {
+                // Closed for real once its current user is done with it
+                eldest.evicted = true;
+                continue;
+            }
+            iterator.remove();
+            closeQuietly(eldest.statement);
+        }
+    }
+
+    private void giveBack(CachedStatement cached) {
+        try {
+            ResultSet rs = cached.statement.getResultSet();
+            if (rs != null) {
+                rs.close();
+            }
+            cached.statement.clearParameters();
+            cached.statement.clearWarnings();
+            // Back to driver defaults, so limits one caller set do not carry over
+            cached.statement.setQueryTimeout(0);
+            cached.statement.setFetchSize(0);
+            cached.statement.setMaxRows(0);
+        } catch (SQLException e) {
+            cached.evicted = true;
+        }
+        cached.inUse = false;
+        cached.generation++;
+
+        if (cached.evicted) {
+            statements.remove(cached.key, cached);
+            closeQuietly(cached.statement);
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static final class CachedStatement {
+        private final String key;
+        private final PreparedStatement statement;
+        private boolean inUse;
+        private boolean evicted;
+        // Bumped on every give-back so leases from earlier callers go stale
+        private int generation;
+
+        private CachedStatement(String key, PreparedStatement statement) {
+            this.key = key;
+            this.statement = statement;
+        }
+    }
+
+    // One caller's use of a cached statement; close() returns it to the cache
+    private final class Lease implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection handle;
+        private final int generation;
+        private boolean closed = false;
+
+        private Lease(CachedStatement cached, Connection handle) {
+            this.cached = cached;
+            this.handle = handle;
+            this.generation = cached.generation;
+        }
+
+        private boolean isStale() {
+            return closed || generation != cached.generation;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!isStale()) {
+                        giveBack(cached);
+                    }
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return isStale() || cached.statement.isClosed();
+                case "getConnection":
+                    return handle;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + cached.statement + "]";
+                default:
+                    if (isStale()) {
+                        throw new SQLException("Statement is closed");
+                    }
+                    try {
+                        return method.invoke(cached.statement, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
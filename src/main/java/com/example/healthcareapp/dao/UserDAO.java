@@ -1,33 +1,37 @@
 package com.example.healthcareapp.dao;
 
 import com.example.healthcareapp.model.User;
-import org.mindrot.jbcrypt.BCrypt;
+import com.example.healthcareapp.util.HashingExecutor;
+import com.example.healthcareapp.util.PasswordHasher;
 
 import java.sql.*;
         import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class UserDAO {
 
-    // Authenticate user by username and password
+    // Active doctors for booking screens, shared process-wide; null until first
+    // loaded and after any user change that could affect it
+    private static volatile List<User> doctorRoster;
+    private static final AtomicInteger rosterVersion = new AtomicInteger();
+
+    // Authenticate user by username and password. BCrypt is slow by design, so
+    // call this off the JavaFX thread (see HashingExecutor).
     public User authenticate(String username, String password) {
         String sql = "SELECT * FROM users WHERE username = ? AND is_active = TRUE";
+        User candidate = null;
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                String storedHash = rs.getString("password_hash");
-
-                // Verify password using BCrypt
-                if (BCrypt.checkpw(password, storedHash)) {
-                    User user = extractUserFromResultSet(rs);
-                    updateLastLogin(user.getUserId());
-                    return user;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    candidate = new UserRowMapper(rs).mapRow(rs);
                 }
             }
 
@@ -35,17 +39,38 @@ public class UserDAO {
             e.printStackTrace();
         }
 
+        // Verify password using BCrypt, after the pooled connection has been returned
+        if (candidate != null && PasswordHasher.verify(password, candidate.getPasswordHash())) {
+            int userId = candidate.getUserId();
+            // last_login is written behind in batches; the login does not wait for it
+            LastLoginWriter.getInstance().recordLogin(userId);
+
+            String storedHash = candidate.getPasswordHash();
+            if (PasswordHasher.needsRehash(storedHash)) {
+                try {
+                    HashingExecutor.getInstance().execute(() -> rehashPassword(userId, password, storedHash));
+                } catch (RejectedExecutionException e) {
+                    // Busy; the hash is upgraded on a later login instead
+                }
+            }
+            return candidate;
+        }
+
         return null; // Authentication failed
     }
 
-    // Update last login timestamp
-    private void updateLastLogin(int userId) {
-        String sql = "UPDATE users SET last_login = NOW() WHERE user_id = ?";
+    // Bring a stored hash to the configured cost. Only replaces the hash it was
+    // computed from, so a password change made in the meantime is kept.
+    private void rehashPassword(int userId, String plainPassword, String oldHash) {
+        String sql = "UPDATE users SET password_hash = ? WHERE user_id = ? AND password_hash = ?";
+        String newHash = PasswordHasher.hash(plainPassword);
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setInt(1, userId);
+            pstmt.setString(1, newHash);
+            pstmt.setInt(2, userId);
+            pstmt.setString(3, oldHash);
             pstmt.executeUpdate();
 
         } catch (SQLException e) {
@@ -60,8 +85,8 @@ public class UserDAO {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            // Hash password with BCrypt (cost factor 12)
-            String passwordHash = BCrypt.hashpw(plainPassword, BCrypt.gensalt(12));
+            // Hash password with BCrypt at the calibrated cost
+            String passwordHash = PasswordHasher.hash(plainPassword);
 
             pstmt.setString(1, user.getUsername());
             pstmt.setString(2, passwordHash);
@@ -69,7 +94,12 @@ public class UserDAO {
             pstmt.setString(4, user.getRole());
             pstmt.setString(5, user.getEmail());
 
-            return pstmt.executeUpdate() > 0;
+            boolean created = pstmt.executeUpdate() > 0;
+            if (created) {
+                invalidateDoctorRoster();
+                UsernameRegistry.getInstance().add(user.getUsername());
+            }
+            return created;
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -86,8 +116,9 @@ public class UserDAO {
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
+            UserRowMapper mapper = new UserRowMapper(rs);
             while (rs.next()) {
-                users.add(extractUserFromResultSet(rs));
+                users.add(mapper.mapRow(rs));
             }
 
         } catch (SQLException e) {
@@ -110,7 +141,11 @@ public class UserDAO {
             pstmt.setBoolean(4, user.isActive());
             pstmt.setInt(5, user.getUserId());
 
-            return pstmt.executeUpdate() > 0;
+            boolean updated = pstmt.executeUpdate() > 0;
+            if (updated) {
+                invalidateDoctorRoster();
+            }
+            return updated;
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -135,9 +170,9 @@ public class UserDAO {
                 String storedHash = rs.getString("password_hash");
 
                 // Verify old password
-                if (BCrypt.checkpw(oldPassword, storedHash)) {
+                if (PasswordHasher.verify(oldPassword, storedHash)) {
                     // Hash new password
-                    String newHash = BCrypt.hashpw(newPassword, BCrypt.gensalt(12));
+                    String newHash = PasswordHasher.hash(newPassword);
 
                     updateStmt.setString(1, newHash);
                     updateStmt.setInt(2, userId);
@@ -161,7 +196,11 @@ public class UserDAO {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setInt(1, userId);
-            return pstmt.executeUpdate() > 0;
+            boolean deactivated = pstmt.executeUpdate() > 0;
+            if (deactivated) {
+                invalidateDoctorRoster();
+            }
+            return deactivated;
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -169,32 +208,13 @@ public class UserDAO {
         }
     }
 
-    // Helper method to extract User from ResultSet
-    private User extractUserFromResultSet(ResultSet rs) throws SQLException {
-        User user = new User();
-        user.setUserId(rs.getInt("user_id"));
-        user.setUsername(rs.getString("username"));
-        user.setPasswordHash(rs.getString("password_hash"));
-        user.setFullName(rs.getString("full_name"));
-        user.setRole(rs.getString("role"));
-        user.setEmail(rs.getString("email"));
-        user.setActive(rs.getBoolean("is_active"));
-
-        Timestamp created = rs.getTimestamp("created_date");
-        if (created != null) {
-            user.setCreatedDate(created.toLocalDateTime());
-        }
-
-        Timestamp lastLogin = rs.getTimestamp("last_login");
-        if (lastLogin != null) {
-            user.setLastLogin(lastLogin.toLocalDateTime());
+    // Check if username already exists. Definitive: names already known to be
+    // taken are answered from memory, anything else is checked in the database.
+    public boolean usernameExists(String username) {
+        if (UsernameRegistry.getInstance().isTaken(username)) {
+            return true;
         }
 
-        return user;
-    }
-
-    // Check if username already exists
-    public boolean usernameExists(String username) {
         String sql = "SELECT COUNT(*) as count FROM users WHERE username = ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
@@ -203,8 +223,9 @@ public class UserDAO {
             pstmt.setString(1, username);
             ResultSet rs = pstmt.executeQuery();
 
-            if (rs.next()) {
-                return rs.getInt("count") > 0;
+            if (rs.next() && rs.getInt("count") > 0) {
+                UsernameRegistry.getInstance().add(username);
+                return true;
             }
 
         } catch (SQLException e) {
@@ -223,8 +244,9 @@ public class UserDAO {
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
+            UserRowMapper mapper = new UserRowMapper(rs);
             while (rs.next()) {
-                users.add(extractUserFromResultSet(rs));
+                users.add(mapper.mapRow(rs));
             }
 
         } catch (SQLException e) {
@@ -234,5 +256,50 @@ public class UserDAO {
         return users;
     }
 
+    // Active doctors, served from memory after the first load. The projection
+    // leaves out password_hash so it never reaches the UI.
+    public List<User> getActiveDoctors() {
+        List<User> roster = doctorRoster;
+        if (roster != null) {
+            return roster;
+        }
+
+        int version = rosterVersion.get();
+        List<User> doctors = new ArrayList<>();
+        String sql = "SELECT user_id, username, full_name, role, email, is_active FROM users " +
+                "WHERE role = 'Doctor' AND is_active = TRUE ORDER BY full_name";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            UserRowMapper mapper = new UserRowMapper(rs);
+            while (rs.next()) {
+                doctors.add(mapper.mapRow(rs));
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+            // Not cached, so the next call retries
+            return doctors;
+        }
+
+        roster = Collections.unmodifiableList(doctors);
+        synchronized (rosterVersion) {
+            // Skip caching if a user changed while the query ran
+            if (rosterVersion.get() == version) {
+                doctorRoster = roster;
+            }
+        }
+        return roster;
+    }
+
+    public static void invalidateDoctorRoster() {
+        synchronized (rosterVersion) {
+            rosterVersion.incrementAndGet();
+            doctorRoster = null;
+        }
+    }
+
 }
 
@@ -0,0 +1,61 @@
+package com.example.healthcareapp.dao;
+
+import com.example.healthcareapp.model.User;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+// Maps rows of the users table; columns a projection leaves out stay unset
+class UserRowMapper implements RowMapper<User> {
+    private final int userId;
+    private final int username;
+    private final int passwordHash;
+    private final int fullName;
+    private final int role;
+    private final int email;
+    private final int isActive;
+    private final int createdDate;
+    private final int lastLogin;
+
+    UserRowMapper(ResultSet rs) throws SQLException {
+        ColumnIndex columns = new ColumnIndex(rs.getMetaData());
+        userId = columns.require("user_id");
+        fullName = columns.require("full_name");
+        username = columns.optional("username");
+        passwordHash = columns.optional("password_hash");
+        role = columns.optional("role");
+        email = columns.optional("email");
+        isActive = columns.optional("is_active");
+        createdDate = columns.optional("created_date");
+        lastLogin = columns.optional("last_login");
+    }
+
+    @Override
+    public User mapRow(ResultSet rs) throws SQLException {
+        User user = new User();
+        user.setUserId(rs.getInt(userId));
+        user.setFullName(rs.getString(fullName));
+        if (username > 0) user.setUsername(rs.getString(username));
+        if (passwordHash > 0) user.setPasswordHash(rs.getString(passwordHash));
+        if (role > 0) user.setRole(rs.getString(role));
+        if (email > 0) user.setEmail(rs.getString(email));
+        if (isActive > 0) user.setActive(rs.getBoolean(isActive));
+
+        if (createdDate > 0) {
+            Timestamp created = rs.getTimestamp(createdDate);
+            if (created != null) {
+                user.setCreatedDate(created.toLocalDateTime());
+            }
+        }
+
+        if (lastLogin > 0) {
+            Timestamp login = rs.getTimestamp(lastLogin);
+            if (login != null) {
+                user.setLastLogin(login.toLocalDateTime());
+            }
+        }
+
+        return user;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.healthcareapp.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Every username in the users table, loaded once and kept current by
+// UserDAO.createUser, so availability checks while typing are a set lookup.
+// Users are only ever deactivated, never deleted, so a name once seen stays
+// taken. A name can still be claimed by another client after loading, which
+// UserDAO.usernameExists catches with a definitive query before registering.
+public class UsernameRegistry {
+
+    private static UsernameRegistry instance;
+
+    private final Set<String> usernames = ConcurrentHashMap.newKeySet();
+    private volatile boolean loaded = false;
+
+    private UsernameRegistry() {}
+
+    public static synchronized UsernameRegistry getInstance() {
+        if (instance == null) {
+            instance = new UsernameRegistry();
+        }
+        return instance;
+    }
+
+    public boolean isTaken(String username) {
+        ensureLoaded();
+        return usernames.contains(normalize(username));
+    }
+
+    void add(String username) {
+        usernames.add(normalize(username));
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    loaded = load();
+                }
+            }
+        }
+    }
+
+    private boolean load() {
+        String sql = "SELECT username FROM users";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                usernames.add(normalize(rs.getString(1)));
+            }
+            return true;
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+            // Try again on the next check
+            return false;
+        }
+    }
+
+    // Case-insensitive, like MySQL's default collation on the username column
+    private static String normalize(String username) {
+        return username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+    }
+}
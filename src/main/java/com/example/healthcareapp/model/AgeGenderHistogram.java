@@ -0,0 +1,94 @@
+package com.example.healthcareapp.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Patient counts by age band and gender in one flat int array, indexed by
+// band * GENDERS + gender. Bands are bandWidth years wide; the last one is
+// open-ended from OPEN_BAND_AGE, rounded down to a band edge.
+public class AgeGenderHistogram {
+
+    public static final int MALE = 0;
+    public static final int FEMALE = 1;
+    public static final int OTHER = 2;
+    public static final int GENDERS = 3;
+
+    private static final int OPEN_BAND_AGE = 90;
+
+    private final int bandWidth;
+    private final int bandCount;
+    private final int[] counts;
+
+    public AgeGenderHistogram(int bandWidth) {
+        if (bandWidth <= 0) {
+            throw new IllegalArgumentException("Band width must be positive: " + bandWidth);
+        }
+        this.bandWidth = bandWidth;
+        this.bandCount = OPEN_BAND_AGE / bandWidth + 1;
+        this.counts = new int[bandCount * GENDERS];
+    }
+
+    public static int genderIndex(String gender) {
+        if ("Male".equalsIgnoreCase(gender)) return MALE;
+        if ("Female".equalsIgnoreCase(gender)) return FEMALE;
+        return OTHER;
+    }
+
+    public int bandOf(int age) {
+        return Math.min(Math.max(age, 0) / bandWidth, bandCount - 1);
+    }
+
+    public void add(int band, int gender, int count) {
+        counts[band * GENDERS + gender] += count;
+    }
+
+    public int getBandWidth() { return bandWidth; }
+    public int getBandCount() { return bandCount; }
+
+    // First age in the band
+    public int getBandStart(int band) {
+        return band * bandWidth;
+    }
+
+    public int getCount(int band, int gender) {
+        return counts[band * GENDERS + gender];
+    }
+
+    public int getBandTotal(int band) {
+        int total = 0;
+        for (int gender = 0; gender < GENDERS; gender++) {
+            total += counts[band * GENDERS + gender];
+        }
+        return total;
+    }
+
+    public int getGenderTotal(int gender) {
+        int total = 0;
+        for (int band = 0; band < bandCount; band++) {
+            total += counts[band * GENDERS + gender];
+        }
+        return total;
+    }
+
+    public int getTotal() {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    public String getBandLabel(int band) {
+        int start = getBandStart(band);
+        return band == bandCount - 1 ? start + "+" : start + "-" + (start + bandWidth - 1);
+    }
+
+    public List<DemographicsRow> toRows() {
+        List<DemographicsRow> rows = new ArrayList<>(bandCount);
+        for (int band = 0; band < bandCount; band++) {
+            rows.add(new DemographicsRow(getBandLabel(band), getCount(band, MALE),
+                    getCount(band, FEMALE), getCount(band, OTHER), getBandTotal(band)));
+        }
+        return rows;
+    }
+}
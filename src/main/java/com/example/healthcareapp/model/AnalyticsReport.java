@@ -2,7 +2,9 @@ package com.example.healthcareapp.model;
 
 import javafx.beans.property.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class AnalyticsReport {
@@ -15,7 +17,11 @@ public class AnalyticsReport {
     private final IntegerProperty totalAppointments;
     private final IntegerProperty completedAppointments;
     private final DoubleProperty completionRate;
+    // Distinct patients with appointments in the range, possibly estimated
+    private final IntegerProperty uniquePatients;
     private final Map<String, Integer> statusDistribution;
+    // Sections that failed or timed out; their values are left at defaults
+    private final List<String> missingSections;
 
     public AnalyticsReport() {
         this.reportType = new SimpleStringProperty();
@@ -27,7 +33,9 @@ public class AnalyticsReport {
         this.totalAppointments = new SimpleIntegerProperty();
         this.completedAppointments = new SimpleIntegerProperty();
         this.completionRate = new SimpleDoubleProperty();
+        this.uniquePatients = new SimpleIntegerProperty();
         this.statusDistribution = new HashMap<>();
+        this.missingSections = new ArrayList<>();
     }
 
     // Getters
@@ -57,8 +65,15 @@ public class AnalyticsReport {
     public double getCompletionRate() { return completionRate.get(); }
     public void setCompletionRate(double value) { completionRate.set(value); }
 
+    public int getUniquePatients() { return uniquePatients.get(); }
+    public void setUniquePatients(int value) { uniquePatients.set(value); }
+
     public Map<String, Integer> getStatusDistribution() { return statusDistribution; }
 
+    public List<String> getMissingSections() { return missingSections; }
+    public void addMissingSection(String section) { missingSections.add(section); }
+    public boolean isPartial() { return !missingSections.isEmpty(); }
+
     // Utility methods
     public void updateGenderDistribution(String gender, int count) {
         genderDistribution.put(gender, count);
@@ -0,0 +1,26 @@
+package com.example.healthcareapp.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+public class AvailableSlot {
+    private final int doctorId;
+    private final LocalDate date;
+    private final LocalTime time;
+
+    public AvailableSlot(int doctorId, LocalDate date, LocalTime time) {
+        this.doctorId = doctorId;
+        this.date = date;
+        this.time = time;
+    }
+
+    public int getDoctorId() { return doctorId; }
+    public LocalDate getDate() { return date; }
+    public LocalTime getTime() { return time; }
+
+    @Override
+    public String toString() {
+        return date + " " + time.format(DateTimeFormatter.ofPattern("hh:mm a"));
+    }
+}
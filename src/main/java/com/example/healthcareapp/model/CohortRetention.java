@@ -0,0 +1,89 @@
+package com.example.healthcareapp.model;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+// Patients grouped into cohorts by the month of their first appointment, with
+// how many of each cohort came back in every later month. Months are held as
+// epoch months (year * 12 + month - 1); counts are one flat int array indexed
+// by cohort * months + offset, where offset 0 is the cohort itself.
+public class CohortRetention {
+
+    private static final DateTimeFormatter LABEL_FORMAT = DateTimeFormatter.ofPattern("MMM yyyy");
+
+    private final int firstMonth;
+    private final int months;
+    private final int[] counts;
+
+    // Empty cohorts for every month from startDate to endDate
+    public CohortRetention(LocalDate startDate, LocalDate endDate) {
+        this.firstMonth = epochMonth(startDate);
+        this.months = Math.max(epochMonth(endDate) - firstMonth + 1, 0);
+        this.counts = new int[months * months];
+    }
+
+    public static int epochMonth(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    public int getFirstMonth() { return firstMonth; }
+
+    // Number of cohorts, which is also the longest run of offsets
+    public int getMonthCount() { return months; }
+
+    // Cohort index for an epoch month, or -1 if outside the range
+    public int cohortOf(int epochMonth) {
+        int cohort = epochMonth - firstMonth;
+        return cohort >= 0 && cohort < months ? cohort : -1;
+    }
+
+    // One patient of the cohort had an appointment offset months after joining
+    public void record(int cohort, int offset) {
+        counts[cohort * months + offset]++;
+    }
+
+    public int getCohortSize(int cohort) {
+        return counts[cohort * months];
+    }
+
+    public int getReturned(int cohort, int offset) {
+        return counts[cohort * months + offset];
+    }
+
+    // Months after joining that have been observed for the cohort, up to the end of the range
+    public int getOffsetCount(int cohort) {
+        return months - cohort;
+    }
+
+    // Percentage of the cohort seen again offset months after joining
+    public double getRate(int cohort, int offset) {
+        int size = getCohortSize(cohort);
+        return size > 0 ? (double) getReturned(cohort, offset) / size * 100 : 0;
+    }
+
+    // Percentage of all patients, across cohorts that have reached the offset,
+    // seen again offset months after joining
+    public double getAverageRate(int offset) {
+        long returned = 0;
+        long size = 0;
+        for (int cohort = 0; cohort < months - offset; cohort++) {
+            returned += getReturned(cohort, offset);
+            size += getCohortSize(cohort);
+        }
+        return size > 0 ? (double) returned / size * 100 : 0;
+    }
+
+    public int getTotalPatients() {
+        int total = 0;
+        for (int cohort = 0; cohort < months; cohort++) {
+            total += getCohortSize(cohort);
+        }
+        return total;
+    }
+
+    public String getCohortLabel(int cohort) {
+        int month = firstMonth + cohort;
+        return YearMonth.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1).format(LABEL_FORMAT);
+    }
+}
@@ -8,15 +8,18 @@ public class DoctorRankingRow {
     private final SimpleDoubleProperty completionRate;
     private final SimpleIntegerProperty patientCount;
     private final SimpleIntegerProperty appointmentCount;
+    // Completion rate discounted for small volumes, 0-100; the ranking order
+    private final SimpleDoubleProperty rankingScore;
     private final SimpleIntegerProperty rankingPosition;
 
     public DoctorRankingRow(int doctorId, String doctorName, double completionRate,
-                            int patientCount, int appointmentCount, int rankingPosition) {
+                            int patientCount, int appointmentCount, double rankingScore, int rankingPosition) {
         this.doctorId = new SimpleIntegerProperty(doctorId);
         this.doctorName = new SimpleStringProperty(doctorName);
         this.completionRate = new SimpleDoubleProperty(completionRate);
         this.patientCount = new SimpleIntegerProperty(patientCount);
         this.appointmentCount = new SimpleIntegerProperty(appointmentCount);
+        this.rankingScore = new SimpleDoubleProperty(rankingScore);
         this.rankingPosition = new SimpleIntegerProperty(rankingPosition);
     }
 
@@ -36,24 +39,21 @@ public class DoctorRankingRow {
     public int getAppointmentCount() { return appointmentCount.get(); }
     public SimpleIntegerProperty appointmentCountProperty() { return appointmentCount; }
 
+    public double getRankingScore() { return rankingScore.get(); }
+    public SimpleDoubleProperty rankingScoreProperty() { return rankingScore; }
+
     public int getRankingPosition() { return rankingPosition.get(); }
     public SimpleIntegerProperty rankingPositionProperty() { return rankingPosition; }
 
-    // Static factory methods for database data
+    // Static factory methods for database data. The score is computed by the
+    // ranking query and rows arrive in its order, so the position is the
+    // row's place in that order.
     public static DoctorRankingRow createFromDatabase(int doctorId, String doctorName,
                                                       double completionRate, int patientCount,
-                                                      int appointmentCount) {
-        // Calculate ranking based on completion rate and appointment volume
-        int ranking = calculateRanking(completionRate, appointmentCount);
+                                                      int appointmentCount, double rankingScore,
+                                                      int rankingPosition) {
         return new DoctorRankingRow(doctorId, doctorName, completionRate, patientCount,
-                appointmentCount, ranking);
-    }
-
-    private static int calculateRanking(double completionRate, int appointmentCount) {
-        // Simple ranking algorithm: prioritize completion rate, then volume
-        int rank = (int)(completionRate * 10); // 0-1000 base score
-        rank += appointmentCount / 10; // Add volume bonus
-        return Math.min(100, rank); // Cap at 100
+                appointmentCount, rankingScore, rankingPosition);
     }
 
     @Override
@@ -62,13 +62,17 @@ public class DoctorRankingRow {
                 doctorName.get(), completionRate.get(), patientCount.get(), appointmentCount.get());
     }
 
-    // Compare for sorting
+    // Compare for sorting; the same order as ReportingService.getDoctorRanking
     public int compareTo(DoctorRankingRow other) {
-        // Sort by completion rate descending, then by appointment count descending
-        int rateCompare = Double.compare(other.getCompletionRate(), this.getCompletionRate());
-        if (rateCompare != 0) {
-            return rateCompare;
+        // Sort by ranking score descending, then by appointment count descending
+        int scoreCompare = Double.compare(other.getRankingScore(), this.getRankingScore());
+        if (scoreCompare != 0) {
+            return scoreCompare;
+        }
+        int countCompare = Integer.compare(other.getAppointmentCount(), this.getAppointmentCount());
+        if (countCompare != 0) {
+            return countCompare;
         }
-        return Integer.compare(other.getAppointmentCount(), this.getAppointmentCount());
+        return Integer.compare(this.getDoctorId(), other.getDoctorId());
     }
 }
@@ -0,0 +1,58 @@
+package com.example.healthcareapp.model;
+
+import java.time.LocalTime;
+
+// Appointment counts per fixed-size time slot of the day, e.g. 24 hourly or
+// 96 quarter-hour slots, summed over a date range
+public class SlotDistribution {
+    private final int slotMinutes;
+    private final int[] counts;
+
+    public SlotDistribution(int slotMinutes) {
+        if (slotMinutes <= 0 || (24 * 60) % slotMinutes != 0) {
+            throw new IllegalArgumentException("Slot size must divide the day: " + slotMinutes);
+        }
+        this.slotMinutes = slotMinutes;
+        this.counts = new int[24 * 60 / slotMinutes];
+    }
+
+    public void add(int slot, int count) {
+        counts[slot] += count;
+    }
+
+    public int getSlotMinutes() { return slotMinutes; }
+    public int getSlotCount() { return counts.length; }
+    public int getCount(int slot) { return counts[slot]; }
+
+    public LocalTime getSlotStart(int slot) {
+        return LocalTime.MIN.plusMinutes((long) slot * slotMinutes);
+    }
+
+    // Slot that holds the given time of day
+    public int slotOf(LocalTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / slotMinutes;
+    }
+
+    public int getTotal() {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    // First and last slots with any appointments, or -1 if there are none
+    public int getFirstBusySlot() {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) return i;
+        }
+        return -1;
+    }
+
+    public int getLastBusySlot() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] > 0) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.healthcareapp.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+
+// Appointment totals and completions per day, week or month, with one entry
+// for every bucket in the range, including empty ones. Held in parallel
+// primitive arrays indexed by bucket.
+public class TimeSeries {
+
+    public enum Bucket {
+        DAY("yyyy-MM-dd"),
+        WEEK("yyyy-MM-dd"),
+        MONTH("MMM yyyy");
+
+        private final DateTimeFormatter labelFormat;
+
+        Bucket(String labelPattern) {
+            this.labelFormat = DateTimeFormatter.ofPattern(labelPattern);
+        }
+
+        // Start of the bucket holding the date; weeks start on Monday
+        public LocalDate startOf(LocalDate date) {
+            switch (this) {
+                case WEEK: return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH: return date.withDayOfMonth(1);
+                default: return date;
+            }
+        }
+
+        public LocalDate next(LocalDate bucketStart) {
+            switch (this) {
+                case WEEK: return bucketStart.plusWeeks(1);
+                case MONTH: return bucketStart.plusMonths(1);
+                default: return bucketStart.plusDays(1);
+            }
+        }
+    }
+
+    private final Bucket bucket;
+    // Bucket starts as epoch days, ascending
+    private final long[] starts;
+    private final int[] totals;
+    private final int[] completed;
+
+    // Zero-filled buckets covering startDate to endDate
+    public TimeSeries(Bucket bucket, LocalDate startDate, LocalDate endDate) {
+        this.bucket = bucket;
+
+        LocalDate first = bucket.startOf(startDate);
+        int count = 0;
+        for (LocalDate d = first; !d.isAfter(endDate); d = bucket.next(d)) {
+            count++;
+        }
+
+        starts = new long[count];
+        totals = new int[count];
+        completed = new int[count];
+        LocalDate d = first;
+        for (int i = 0; i < count; i++) {
+            starts[i] = d.toEpochDay();
+            d = bucket.next(d);
+        }
+    }
+
+    // Index of the bucket holding the day, searching forward from hint; lets
+    // days arriving in ascending order be placed in a single pass
+    public int indexOf(long epochDay, int hint) {
+        int i = Math.max(hint, 0);
+        while (i + 1 < starts.length && starts[i + 1] <= epochDay) {
+            i++;
+        }
+        return i;
+    }
+
+    public void add(int index, int total, int completedCount) {
+        totals[index] += total;
+        completed[index] += completedCount;
+    }
+
+    public Bucket getBucket() { return bucket; }
+    public int size() { return starts.length; }
+    public LocalDate getStart(int index) { return LocalDate.ofEpochDay(starts[index]); }
+    public int getTotal(int index) { return totals[index]; }
+    public int getCompleted(int index) { return completed[index]; }
+
+    public String getLabel(int index) {
+        return getStart(index).format(bucket.labelFormat);
+    }
+}
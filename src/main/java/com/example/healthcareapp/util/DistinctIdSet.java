@@ -0,0 +1,125 @@
+package com.example.healthcareapp.util;
+
+import java.util.Arrays;
+
+// Distinct int ids, kept as an exact sorted list while small and promoted to
+// a HyperLogLog once it passes PROMOTE_AT ids. A doctor's day holds a few
+// dozen patients, so nearly every stored set stays exact at 4 bytes per id
+// instead of a full sketch. Serialized as a type byte followed by either the
+// ids (big-endian) or the sketch registers.
+public class DistinctIdSet {
+
+    public static final int PROMOTE_AT = 256;
+
+    private static final byte EXACT = 0;
+    private static final byte SKETCH = 1;
+
+    private final int precision;
+    // Sorted ids while exact; null once promoted
+    private int[] ids;
+    private int size;
+    private HyperLogLog sketch;
+
+    // precision is used if the set is ever promoted to a sketch
+    public DistinctIdSet(int precision) {
+        this.precision = precision;
+        this.ids = new int[4];
+    }
+
+    private DistinctIdSet(int precision, int[] ids, HyperLogLog sketch) {
+        this.precision = precision;
+        this.ids = ids;
+        this.size = ids != null ? ids.length : 0;
+        this.sketch = sketch;
+    }
+
+    // Returns true if the set changed and needs to be written back
+    public boolean add(int id) {
+        if (sketch != null) {
+            return sketch.add(id);
+        }
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            return false;
+        }
+        if (size == PROMOTE_AT) {
+            promote();
+            return sketch.add(id);
+        }
+        index = -index - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.min(ids.length * 2, PROMOTE_AT));
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        size++;
+        return true;
+    }
+
+    private void promote() {
+        sketch = new HyperLogLog(precision);
+        for (int i = 0; i < size; i++) {
+            sketch.add(ids[i]);
+        }
+        ids = null;
+        size = 0;
+    }
+
+    public boolean isExact() {
+        return sketch == null;
+    }
+
+    // The ids, sorted; only while exact
+    public int[] getIds() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    // Only once promoted
+    public HyperLogLog getSketch() {
+        return sketch;
+    }
+
+    public long estimate() {
+        return sketch != null ? sketch.estimate() : size;
+    }
+
+    public byte[] toBytes() {
+        if (sketch != null) {
+            byte[] registers = sketch.toBytes();
+            byte[] bytes = new byte[registers.length + 1];
+            bytes[0] = SKETCH;
+            System.arraycopy(registers, 0, bytes, 1, registers.length);
+            return bytes;
+        }
+        byte[] bytes = new byte[1 + size * 4];
+        bytes[0] = EXACT;
+        for (int i = 0; i < size; i++) {
+            int id = ids[i];
+            bytes[1 + i * 4] = (byte) (id >>> 24);
+            bytes[2 + i * 4] = (byte) (id >>> 16);
+            bytes[3 + i * 4] = (byte) (id >>> 8);
+            bytes[4 + i * 4] = (byte) id;
+        }
+        return bytes;
+    }
+
+    // An empty set if the stored bytes are missing or not in a known format
+    public static DistinctIdSet fromBytes(byte[] bytes, int precision) {
+        if (bytes == null || bytes.length == 0) {
+            return new DistinctIdSet(precision);
+        }
+        if (bytes[0] == SKETCH) {
+            HyperLogLog sketch = HyperLogLog.fromBytes(Arrays.copyOfRange(bytes, 1, bytes.length));
+            return new DistinctIdSet(sketch.getPrecision(), null, sketch);
+        }
+        if (bytes[0] != EXACT || (bytes.length - 1) % 4 != 0) {
+            return new DistinctIdSet(precision);
+        }
+        int[] ids = new int[(bytes.length - 1) / 4];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (bytes[1 + i * 4] & 0xFF) << 24 | (bytes[2 + i * 4] & 0xFF) << 16
+                    | (bytes[3 + i * 4] & 0xFF) << 8 | (bytes[4 + i * 4] & 0xFF);
+        }
+        return new DistinctIdSet(precision, ids, null);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.healthcareapp.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs BCrypt work (password checks and hashing) off the JavaFX thread. One
+// thread per core since the work is CPU-bound; the queue is bounded so a
+// login burst is refused rather than piling up unbounded.
+public class HashingExecutor implements Executor {
+    private static final int QUEUE_CAPACITY = 64;
+
+    private static HashingExecutor instance;
+    private final ThreadPoolExecutor pool;
+
+    private HashingExecutor() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    public static synchronized HashingExecutor getInstance() {
+        if (instance == null) {
+            instance = new HashingExecutor();
+        }
+        return instance;
+    }
+
+    // Throws RejectedExecutionException when the queue is full
+    @Override
+    public void execute(Runnable task) {
+        if (pool.isShutdown()) {
+            throw new RejectedExecutionException("Hashing executor is shut down");
+        }
+        pool.execute(task);
+    }
+
+    public int getQueuedTasks() {
+        return pool.getQueue().size();
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
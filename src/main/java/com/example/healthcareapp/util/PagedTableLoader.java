@@ -0,0 +1,153 @@
+package com.example.healthcareapp.util;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+// Fills a TableView one page at a time, fetching the next page when the user
+// scrolls near the bottom. The page source receives the last fetched row as
+// the keyset cursor (null for the first page); it is kept apart from the
+// displayed rows, which column sorting reorders. Pages are fetched on a
+// background thread, one at a time.
+public class PagedTableLoader<T> {
+
+    // Fetch the next page once the scroll bar is this far down
+    private static final double PREFETCH_THRESHOLD = 0.9;
+
+    private final TableView<T> table;
+    private final int pageSize;
+    private final ObservableList<T> items = FXCollections.observableArrayList();
+    private BiFunction<T, Integer, List<T>> pageSource;
+    private boolean exhausted = false;
+    private boolean scrollListenerInstalled = false;
+    // Last row of the last page fetched, in the page source's order
+    private T lastFetched;
+    private boolean loading = false;
+    // Incremented by reset, so a page fetched for an earlier source is dropped
+    private int generation = 0;
+    private Runnable onPageLoaded;
+
+    public PagedTableLoader(TableView<T> table, int pageSize) {
+        this.table = table;
+        this.pageSize = pageSize;
+        table.setItems(items);
+
+        if (table.getSkin() != null) {
+            installScrollListener();
+        } else {
+            table.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+                if (newSkin != null) {
+                    Platform.runLater(this::installScrollListener);
+                }
+            });
+        }
+    }
+
+    // Switch to a new page source and load its first page
+    public void reset(BiFunction<T, Integer, List<T>> pageSource) {
+        this.pageSource = pageSource;
+        generation++;
+        items.clear();
+        exhausted = false;
+        lastFetched = null;
+        loading = false;
+        table.setItems(items);
+        table.scrollTo(0);
+        loadNextPage();
+    }
+
+    // Re-run the current page source from the beginning
+    public void reload() {
+        if (pageSource != null) {
+            reset(pageSource);
+        }
+    }
+
+    // Called on the FX thread after each page is added
+    public void setOnPageLoaded(Runnable onPageLoaded) {
+        this.onPageLoaded = onPageLoaded;
+    }
+
+    public void loadNextPage() {
+        if (pageSource == null || exhausted || loading) {
+            return;
+        }
+        loading = true;
+        int loadGeneration = generation;
+        BiFunction<T, Integer, List<T>> source = pageSource;
+        T cursor = lastFetched;
+
+        Task<List<T>> load = new Task<>() {
+            @Override
+            protected List<T> call() {
+                return source.apply(cursor, pageSize);
+            }
+        };
+        load.setOnSucceeded(event -> {
+            if (loadGeneration != generation) {
+                return;
+            }
+            loading = false;
+            List<T> page = load.getValue();
+            if (!page.isEmpty()) {
+                lastFetched = page.get(page.size() - 1);
+            }
+            items.addAll(page);
+            if (page.size() < pageSize) {
+                exhausted = true;
+            }
+            // Keep appended rows in the user's column order
+            if (!table.getSortOrder().isEmpty()) {
+                table.sort();
+            }
+            if (onPageLoaded != null) {
+                onPageLoaded.run();
+            }
+        });
+        load.setOnFailed(event -> {
+            if (loadGeneration == generation) {
+                loading = false;
+            }
+            load.getException().printStackTrace();
+        });
+
+        Thread thread = new Thread(load, "table-page");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public ObservableList<T> getItems() {
+        return items;
+    }
+
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    private void installScrollListener() {
+        if (scrollListenerInstalled) {
+            return;
+        }
+        for (Node node : table.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                ScrollBar scrollBar = (ScrollBar) node;
+                scrollBar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                    double range = scrollBar.getMax() - scrollBar.getMin();
+                    if (range > 0 && (newValue.doubleValue() - scrollBar.getMin()) / range >= PREFETCH_THRESHOLD) {
+                        loadNextPage();
+                    }
+                });
+                scrollListenerInstalled = true;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.healthcareapp.util;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.Arrays;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+// BCrypt policy for the application. The work factor is calibrated per machine
+// (see HashGenerator) so a password check takes about a target time, and is
+// stored in user preferences; stored hashes with a lower cost are upgraded on
+// the next successful login. Hashes with a higher cost are kept, since machines
+// calibrated to different costs would otherwise re-hash the same account back
+// and forth.
+public class PasswordHasher {
+
+    public static final int DEFAULT_COST = 12;
+    // Never go below this, however slow the machine
+    public static final int MIN_COST = 10;
+    public static final int MAX_COST = 16;
+    public static final long DEFAULT_TARGET_MILLIS = 250;
+
+    private static final String COST_KEY = "bcrypt.cost";
+    private static final String BENCHMARK_PASSWORD = "calibration-password";
+
+    private static volatile Integer cachedCost;
+
+    private PasswordHasher() {}
+
+    public static String hash(String plainPassword) {
+        return BCrypt.hashpw(plainPassword, BCrypt.gensalt(getCost()));
+    }
+
+    public static boolean verify(String plainPassword, String storedHash) {
+        return storedHash != null && BCrypt.checkpw(plainPassword, storedHash);
+    }
+
+    // True when a stored hash was made with a lower cost than the configured one
+    public static boolean needsRehash(String storedHash) {
+        int cost = costOf(storedHash);
+        return cost > 0 && cost < getCost();
+    }
+
+    // Cost encoded in a "$2a$12$..." hash, or -1 if it cannot be read
+    public static int costOf(String storedHash) {
+        if (storedHash == null || storedHash.length() < 7 || storedHash.charAt(0) != '$') {
+            return -1;
+        }
+        int costStart = storedHash.indexOf('$', 1) + 1;
+        try {
+            return Integer.parseInt(storedHash.substring(costStart, costStart + 2));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    public static int getCost() {
+        Integer cost = cachedCost;
+        if (cost == null) {
+            cost = clamp(preferences().getInt(COST_KEY, DEFAULT_COST));
+            cachedCost = cost;
+        }
+        return cost;
+    }
+
+    public static void saveCost(int cost) {
+        int clamped = clamp(cost);
+        Preferences preferences = preferences();
+        preferences.putInt(COST_KEY, clamped);
+        try {
+            preferences.flush();
+        } catch (BackingStoreException e) {
+            e.printStackTrace();
+        }
+        cachedCost = clamped;
+    }
+
+    // Highest cost whose measured hash time stays within the target. Each cost
+    // step doubles the work, so one measurement at MIN_COST gives the estimate,
+    // which is then checked against a real measurement at the chosen cost.
+    public static int calibrate(long targetMillis) {
+        double baseMillis = benchmark(MIN_COST, 3);
+        int cost = MIN_COST;
+        while (cost < MAX_COST && baseMillis * (1L << (cost + 1 - MIN_COST)) <= targetMillis) {
+            cost++;
+        }
+        while (cost > MIN_COST && benchmark(cost, 3) > targetMillis) {
+            cost--;
+        }
+        return cost;
+    }
+
+    // Median milliseconds to hash one password at the given cost
+    public static double benchmark(int cost, int rounds) {
+        String salt = BCrypt.gensalt(cost);
+        BCrypt.hashpw(BENCHMARK_PASSWORD, salt); // warm-up
+
+        double[] samples = new double[Math.max(1, rounds)];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw(BENCHMARK_PASSWORD, salt);
+            samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+
+    private static int clamp(int cost) {
+        return Math.max(MIN_COST, Math.min(MAX_COST, cost));
+    }
+
+    private static Preferences preferences() {
+        return Preferences.userNodeForPackage(PasswordHasher.class);
+    }
+}
@@ -2,6 +2,7 @@ module com.example.healthcareapp {
         requires javafx.controls;
         requires javafx.fxml;
         requires java.sql;
+        requires java.prefs;
         requires jbcrypt;
         requires javafx.base;
 
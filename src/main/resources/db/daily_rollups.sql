@@ -0,0 +1,34 @@
+-- Daily appointment rollups used by the reports. Apply with
+-- "RollupTool migrate", then backfill with "RollupTool rebuild".
+
+CREATE TABLE IF NOT EXISTS appointment_daily_rollup (
+    rollup_date DATE NOT NULL,
+    doctor_id INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    appointment_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (rollup_date, doctor_id, status)
+);
+
+-- Distinct patients per day, doctor and status, encoded by DistinctIdSet:
+-- a type byte, then 4 bytes per patient id, or a 4096-register sketch once
+-- a row passes 256 patients
+CREATE TABLE IF NOT EXISTS appointment_daily_patient_sets (
+    rollup_date DATE NOT NULL,
+    doctor_id INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    patient_ids VARBINARY(4097) NOT NULL,
+    PRIMARY KEY (rollup_date, doctor_id, status)
+);
+
+-- Dates whose rollups missed a write and need a rebuild. 1000-01-01 stands
+-- for every date: the tables have not been backfilled yet.
+CREATE TABLE IF NOT EXISTS appointment_rollup_dirty (
+    rollup_date DATE NOT NULL PRIMARY KEY
+);
+
+INSERT IGNORE INTO appointment_rollup_dirty (rollup_date)
+    SELECT '1000-01-01' FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM appointment_daily_patient_sets);
+
+-- Earlier patient tables, replaced by appointment_daily_patient_sets
+DROP TABLE IF EXISTS appointment_daily_patients;
+DROP TABLE IF EXISTS appointment_daily_patient_sketches;